@@ -0,0 +1,63 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.UsersServiceSpringBootApplication;
+import com.appsdeveloperblog.tutorials.junit.reactive.ReactiveUsersApplication;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the service against an in-memory H2 database, so benchmarks can drive the real service
+ * and repository beans, or the real HTTP stack.
+ */
+final class BenchmarkApplication {
+
+  private BenchmarkApplication() {
+  }
+
+  static ConfigurableApplicationContext start(String... extraArgs) {
+    return run(WebApplicationType.NONE, extraArgs);
+  }
+
+  /**
+   * Same as {@link #start} but with the embedded Tomcat listening on a random port.
+   */
+  static ConfigurableApplicationContext startServer(String... extraArgs) {
+    List<String> args = new ArrayList<>(List.of("--server.port=0"));
+    args.addAll(List.of(extraArgs));
+    return run(WebApplicationType.SERVLET, args.toArray(new String[0]));
+  }
+
+  /**
+   * Starts {@link ReactiveUsersApplication} on a random port, reading the database a previous
+   * {@link #start} created.
+   */
+  static ConfigurableApplicationContext startReactiveServer() {
+    SpringApplication application = new SpringApplication(ReactiveUsersApplication.class);
+    application.setWebApplicationType(WebApplicationType.REACTIVE);
+    return application.run("--server.port=0",
+        "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark;DB_CLOSE_DELAY=-1",
+        "--spring.r2dbc.username=sa",
+        "--logging.level.root=WARN");
+  }
+
+  private static ConfigurableApplicationContext run(WebApplicationType webApplicationType,
+      String... extraArgs) {
+    List<String> args = new ArrayList<>(List.of(
+        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "--spring.jpa.hibernate.ddl-auto=create-drop",
+        "--spring.jpa.show-sql=false",
+        "--logging.level.root=WARN"));
+    args.addAll(List.of(extraArgs));
+
+    SpringApplication application = new SpringApplication(UsersServiceSpringBootApplication.class);
+    application.setWebApplicationType(webApplicationType);
+    return application.run(args.toArray(new String[0]));
+  }
+}
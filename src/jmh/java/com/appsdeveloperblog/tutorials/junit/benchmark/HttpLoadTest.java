@@ -0,0 +1,138 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenService;
+import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
+import com.appsdeveloperblog.tutorials.junit.security.UserPrincipal;
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Closed-loop HTTP load test against a locally started instance: {@code connections} clients each
+ * send the next {@code GET /users?page=1&limit=20} as soon as the previous one answered, for
+ * {@code seconds} seconds after a warm-up. Reports throughput and latency percentiles.
+ *
+ * <p>Run once per execution mode and compare: {@code platform} and {@code virtual} (Java 21) hit
+ * the servlet application, {@code reactive} hits {@code ReactiveUsersApplication} over the same
+ * data.
+ * <pre>
+ * mvn -P benchmarks,java21 test-compile exec:exec@load-test -Dload.args="platform 1000 30"
+ * mvn -P benchmarks,java21 test-compile exec:exec@load-test -Dload.args="virtual 1000 30"
+ * mvn -P benchmarks test-compile exec:exec@load-test -Dload.args="reactive 1000 30"
+ * </pre>
+ */
+public final class HttpLoadTest {
+
+  private static final Duration WARM_UP = Duration.ofSeconds(10);
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(10))
+      .build();
+  private final Recorder recorder = new Recorder(TimeUnit.SECONDS.toNanos(60), 3);
+  private final LongAdder errors = new LongAdder();
+  private volatile boolean running = true;
+  private volatile boolean recording;
+
+  public static void main(String[] args) throws Exception {
+    String mode = args.length > 0 ? args[0] : "platform";
+    int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+    boolean reactive = "reactive".equals(mode);
+
+    ConfigurableApplicationContext context = reactive
+        ? BenchmarkApplication.start()
+        : BenchmarkApplication.startServer(
+            "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+            "--spring.datasource.hikari.maximum-pool-size=20");
+    ConfigurableApplicationContext server = reactive
+        ? BenchmarkApplication.startReactiveServer()
+        : context;
+    try {
+      String token = seed(context);
+      int port = ((WebServerApplicationContext) server).getWebServer().getPort();
+      URI users = URI.create("http://localhost:" + port + "/users?page=1&limit=20");
+      new HttpLoadTest().run(mode, users, token, connections, seconds);
+    } finally {
+      server.close();
+      context.close();
+    }
+  }
+
+  private static String seed(ConfigurableApplicationContext context) {
+    UsersService usersService = context.getBean(UsersService.class);
+    UserDto first = null;
+    for (int i = 0; i < 100; i++) {
+      UserDto user = new UserDto();
+      user.setFirstName("Load");
+      user.setLastName("Test");
+      user.setEmail("load" + i + "@benchmark.test");
+      user.setPassword("12345678");
+      UserDto created = usersService.createUser(user);
+      if (first == null) {
+        first = created;
+      }
+    }
+
+    return SecurityConstants.TOKEN_PREFIX + context.getBean(JwtTokenService.class).createToken(
+        new UserPrincipal(first.getUserId(), first.getEmail(), "", AuthorityUtils.NO_AUTHORITIES));
+  }
+
+  private void run(String mode, URI uri, String token, int connections, int seconds)
+      throws InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(uri)
+        .header(SecurityConstants.HEADER_STRING, token)
+        .timeout(Duration.ofSeconds(30))
+        .GET()
+        .build();
+    for (int i = 0; i < connections; i++) {
+      send(request);
+    }
+
+    Thread.sleep(WARM_UP.toMillis());
+    recorder.reset();
+    errors.reset();
+    recording = true;
+    long start = System.nanoTime();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+    Histogram histogram = recorder.getIntervalHistogram();
+    long elapsed = System.nanoTime() - start;
+    running = false;
+
+    System.out.printf("%s, %d connections: %.0f req/s, p50 %.1f ms, p99 %.1f ms, "
+            + "max %.1f ms, %d errors%n", mode, connections,
+        histogram.getTotalCount() / (elapsed / 1e9),
+        histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+        histogram.getMaxValue() / 1e6, errors.sum());
+  }
+
+  private CompletableFuture<Void> send(HttpRequest request) {
+    long start = System.nanoTime();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .handle((response, failure) -> {
+          if (recording) {
+            if (failure != null || response.statusCode() != 200) {
+              errors.increment();
+            } else {
+              recorder.recordValue(Math.min(System.nanoTime() - start,
+                  TimeUnit.SECONDS.toNanos(60)));
+            }
+          }
+          if (running) {
+            send(request);
+          }
+          return null;
+        });
+  }
+}
@@ -0,0 +1,88 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenValidationFilter;
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenService;
+import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
+import com.appsdeveloperblog.tutorials.junit.security.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Token signing as done after a successful {@code POST /login}, and token verification on its
+ * own (with and without the verified-token cache) and through {@link JwtTokenValidationFilter}
+ * as done on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+  private static final UserPrincipal PRINCIPAL = new UserPrincipal(
+      "5f0b2c1e-7a43-4c4e-9f0e-3c1b2a9d8e71", "eden@test.com", "",
+      AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+  private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+  };
+
+  private JwtTokenService jwtTokenService;
+  private JwtTokenService uncachedJwtTokenService;
+  private JwtTokenValidationFilter validationFilter;
+  private MockHttpServletRequest request;
+  private String authorizationHeader;
+
+  @Setup
+  public void setup() {
+    jwtTokenService = new JwtTokenService();
+    uncachedJwtTokenService = new JwtTokenService(JwtTokenService.DEFAULT_KEY_ID, "", 0);
+    validationFilter = new JwtTokenValidationFilter(authentication -> authentication,
+        jwtTokenService);
+
+    authorizationHeader = SecurityConstants.TOKEN_PREFIX
+        + jwtTokenService.createToken(PRINCIPAL);
+    request = new MockHttpServletRequest("GET", "/users/5f0b2c1e");
+    request.addHeader(SecurityConstants.HEADER_STRING, authorizationHeader);
+  }
+
+  @Benchmark
+  public String sign() {
+    return jwtTokenService.createToken(PRINCIPAL);
+  }
+
+  @Benchmark
+  public UserPrincipal verify() {
+    return uncachedJwtTokenService.getPrincipal(authorizationHeader);
+  }
+
+  @Benchmark
+  public UserPrincipal verifyCached() {
+    return jwtTokenService.getPrincipal(authorizationHeader);
+  }
+
+  @Benchmark
+  public Authentication parse() throws ServletException, IOException {
+    validationFilter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    SecurityContextHolder.clearContext();
+    return authentication;
+  }
+}
@@ -0,0 +1,110 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the SQL behind {@code GET /users?page=} (OFFSET plus count) with the keyset query
+ * behind {@code GET /users?after=} on an H2 copy of the users table. Offset latency grows with
+ * the page number; keyset latency should stay flat from page 1 to page 100k.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class KeysetPaginationBenchmark {
+
+  private static final String COLUMNS = "id, user_id, first_name, last_name, email";
+
+  @Param({"1", "1000", "100000"})
+  private int page;
+
+  @Param({"20"})
+  private int limit;
+
+  @Param({"2000020"})
+  private int rows;
+
+  private Connection connection;
+  private PreparedStatement offsetQuery;
+  private PreparedStatement countQuery;
+  private PreparedStatement keysetQuery;
+  private long lastIdOfPreviousPage;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:keyset;DB_CLOSE_DELAY=-1");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists users");
+      statement.execute("create table users (id bigint primary key, "
+          + "user_id varchar(255) not null unique, first_name varchar(50) not null, "
+          + "last_name varchar(50) not null, email varchar(120) not null, "
+          + "encrypted_password varchar(255) not null)");
+      statement.execute("insert into users select x, random_uuid(), 'First' || x, 'Last' || x, "
+          + "'user' || x || '@test.com', 'hash' || x from system_range(1, " + rows + ")");
+    }
+
+    offsetQuery = connection.prepareStatement(
+        "select " + COLUMNS + " from users order by id offset ? rows fetch first ? rows only");
+    countQuery = connection.prepareStatement("select count(*) from users");
+    keysetQuery = connection.prepareStatement(
+        "select " + COLUMNS + " from users where id > ? order by id fetch first ? rows only");
+
+    // ids are dense, so the cursor for page N is the last id of page N - 1
+    lastIdOfPreviousPage = (long) (page - 1) * limit;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Benchmark
+  public void offsetPage(Blackhole blackhole) throws SQLException {
+    offsetQuery.setLong(1, (long) (page - 1) * limit);
+    offsetQuery.setInt(2, limit);
+    consume(offsetQuery, blackhole);
+    try (ResultSet resultSet = countQuery.executeQuery()) {
+      resultSet.next();
+      blackhole.consume(resultSet.getLong(1));
+    }
+  }
+
+  @Benchmark
+  public void keysetPage(Blackhole blackhole) throws SQLException {
+    keysetQuery.setLong(1, lastIdOfPreviousPage);
+    // one extra row tells the slice whether there is a next page
+    keysetQuery.setInt(2, limit + 1);
+    consume(keysetQuery, blackhole);
+  }
+
+  private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+    try (ResultSet resultSet = query.executeQuery()) {
+      while (resultSet.next()) {
+        blackhole.consume(resultSet.getLong(1));
+        blackhole.consume(resultSet.getString(2));
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.shared.ReferenceModelMapper;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.shared.UserMapper;
+import com.appsdeveloperblog.tutorials.junit.ui.request.UserDetailsRequestModel;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the mappings of {@code POST /users} (request to dto, dto to entity, entity to dto, dto to
+ * response) through {@link ReferenceModelMapper} and through {@link UserMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+  private ModelMapper modelMapper;
+  private UserMapper userMapper;
+  private UserDetailsRequestModel userDetails;
+
+  @Setup
+  public void setup() {
+    modelMapper = ReferenceModelMapper.create();
+    userMapper = new UserMapper();
+
+    userDetails = new UserDetailsRequestModel();
+    userDetails.setFirstName("Eden");
+    userDetails.setLastName("Bercier");
+    userDetails.setEmail("eden@test.com");
+    userDetails.setPassword("12345678");
+    userDetails.setRepeatPassword("12345678");
+  }
+
+  @Benchmark
+  public UserRest modelMapper() {
+    UserDto userDto = modelMapper.map(userDetails, UserDto.class);
+    UserEntity userEntity = modelMapper.map(userDto, UserEntity.class);
+    userEntity.setUserId("5f0b2c1e-7a43-4c4e-9f0e-3c1b2a9d8e71");
+    return modelMapper.map(modelMapper.map(userEntity, UserDto.class), UserRest.class);
+  }
+
+  @Benchmark
+  public UserRest userMapper() {
+    UserDto userDto = userMapper.toUserDto(userDetails);
+    UserEntity userEntity = userMapper.toUserEntity(userDto);
+    userEntity.setUserId("5f0b2c1e-7a43-4c4e-9f0e-3c1b2a9d8e71");
+    return userMapper.toUserRest(userMapper.toUserDto(userEntity));
+  }
+}
@@ -0,0 +1,50 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt hashing ({@code POST /users}) and verification ({@code POST /login}) per cost factor.
+ * Every step of the cost doubles the work, so this is where a cost change shows up first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+  @Param({"4", "8", "10", "12"})
+  private int strength;
+
+  private BCryptPasswordEncoder passwordEncoder;
+  private String encodedPassword;
+
+  @Setup
+  public void setup() {
+    passwordEncoder = new BCryptPasswordEncoder(strength);
+    encodedPassword = passwordEncoder.encode("12345678");
+  }
+
+  @Benchmark
+  public String encode() {
+    return passwordEncoder.encode("12345678");
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return passwordEncoder.matches("12345678", encodedPassword);
+  }
+}
@@ -0,0 +1,97 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cost of reading a page of {@link UserEntity} in a read-write transaction, where Hibernate keeps
+ * a snapshot per entity and dirty-checks all of them at commit, versus a read-only one, and versus
+ * the projection query behind {@code getUsers}. Run with the default {@code -prof gc} to see the
+ * allocation per page next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyTransactionBenchmark {
+
+  @Param({"100", "1000"})
+  private int pageSize;
+
+  private ConfigurableApplicationContext context;
+  private UsersRepository usersRepository;
+  private UsersService usersService;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = BenchmarkApplication.start();
+    usersRepository = context.getBean(UsersRepository.class);
+    usersService = context.getBean(UsersService.class);
+
+    PlatformTransactionManager transactionManager =
+        context.getBean(PlatformTransactionManager.class);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    List<UserEntity> users = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      UserEntity user = new UserEntity();
+      user.setUserId(UUID.randomUUID().toString());
+      user.setFirstName("First" + i);
+      user.setLastName("Last" + i);
+      user.setEmail("user" + i + "@benchmark.test");
+      user.setEncryptedPassword("{bcrypt}hash" + i);
+      users.add(user);
+    }
+    usersRepository.saveAll(users);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object readWriteEntities() {
+    return readWrite.execute(status ->
+        usersRepository.findAll(PageRequest.of(0, pageSize)).getContent());
+  }
+
+  @Benchmark
+  public Object readOnlyEntities() {
+    return readOnly.execute(status ->
+        usersRepository.findAll(PageRequest.of(0, pageSize)).getContent());
+  }
+
+  @Benchmark
+  public Object readOnlyProjections() {
+    return usersService.getUsers(1, pageSize);
+  }
+}
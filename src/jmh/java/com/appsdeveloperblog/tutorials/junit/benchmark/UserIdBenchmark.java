@@ -0,0 +1,112 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserts into a users table already holding {@code rows} rows, keyed by the old random UUID
+ * strings in a VARCHAR(255) unique column or by {@link UserIds} in a BINARY(16) one. The table
+ * lives in an H2 file database under {@code target/}, and the space it uses, unique index
+ * included, is printed after each trial. Filling 10M rows takes minutes; pass {@code -p rows=}
+ * for a quicker run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserIdBenchmark {
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"uuid4-varchar", "uuid7-binary"})
+  private String userIdType;
+
+  @Param({"10000000"})
+  private int rows;
+
+  private Connection connection;
+  private PreparedStatement insert;
+  private long nextId;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    connection = DriverManager.getConnection(
+        "jdbc:h2:./target/user-ids-" + userIdType + ";MODE=MySQL", "sa", "");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists users");
+      statement.execute("create table users (id bigint primary key, user_id "
+          + (isBinary() ? "binary(16)" : "varchar(255)") + " not null unique, "
+          + "email varchar(120) not null)");
+    }
+
+    insert = connection.prepareStatement("insert into users values (?, ?, ?)");
+    connection.setAutoCommit(false);
+    while (nextId < rows) {
+      insertBatch();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+            "select count(*), disk_space_used('USERS') from users")) {
+      resultSet.next();
+      long count = resultSet.getLong(1);
+      long bytes = resultSet.getLong(2);
+      // the measured inserts add rows, so compare bytes per row rather than totals
+      System.out.printf("%n%s: %,d rows use %,d bytes including the unique index, %d per row%n",
+          userIdType, count, bytes, bytes / count);
+    }
+    connection.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void insertUsers() throws SQLException {
+    insertBatch();
+  }
+
+  private void insertBatch() throws SQLException {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      long id = ++nextId;
+      insert.setLong(1, id);
+      if (isBinary()) {
+        insert.setBytes(2, UserIds.toBytes(UserIds.newUserId()));
+      } else {
+        insert.setString(2, UUID.randomUUID().toString());
+      }
+      insert.setString(3, "user" + id + "@benchmark.test");
+      insert.addBatch();
+    }
+    insert.executeBatch();
+    connection.commit();
+  }
+
+  private boolean isBinary() {
+    return userIdType.equals("uuid7-binary");
+  }
+}
@@ -0,0 +1,82 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Users created per second through {@code createUser} one at a time versus one
+ * {@code createUsers} chunk. Both paths pay for BCrypt; the batch path hashes in parallel,
+ * checks duplicates with one query and inserts in JDBC batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserImportBenchmark {
+
+  private static final int USERS_PER_INVOCATION = 200;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  private ConfigurableApplicationContext context;
+  private UsersService usersService;
+  private List<UserDto> users;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    usersService = context.getBean(UsersService.class);
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareUsers() {
+    users = new ArrayList<>(USERS_PER_INVOCATION);
+    for (int i = 0; i < USERS_PER_INVOCATION; i++) {
+      UserDto user = new UserDto();
+      user.setFirstName("Bench");
+      user.setLastName("Mark");
+      user.setEmail("user" + sequence.incrementAndGet() + "@benchmark.test");
+      user.setPassword("12345678");
+      users.add(user);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(USERS_PER_INVOCATION)
+  public void singleCreate() {
+    for (UserDto user : users) {
+      usersService.createUser(user);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(USERS_PER_INVOCATION)
+  public Object batchCreate() {
+    return usersService.createUsers(users);
+  }
+}
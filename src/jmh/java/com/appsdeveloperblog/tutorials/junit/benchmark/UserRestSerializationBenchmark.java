@@ -0,0 +1,68 @@
+package com.appsdeveloperblog.tutorials.junit.benchmark;
+
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson serialization of the {@code GET /users/{userId}} body and of a {@code GET /users}
+ * page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRestSerializationBenchmark {
+
+  @Param({"20", "1000"})
+  private int pageSize;
+
+  private ObjectMapper objectMapper;
+  private UserRest user;
+  private List<UserRest> users;
+
+  @Setup
+  public void setup() {
+    objectMapper = new ObjectMapper();
+    user = user(0);
+    users = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      users.add(user(i));
+    }
+  }
+
+  @Benchmark
+  public byte[] user() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public byte[] users() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(users);
+  }
+
+  private static UserRest user(int i) {
+    UserRest user = new UserRest();
+    user.setUserId("5f0b2c1e-7a43-4c4e-9f0e-" + String.format("%012d", i));
+    user.setFirstName("First" + i);
+    user.setLastName("Last" + i);
+    user.setEmail("user" + i + "@test.com");
+    return user;
+  }
+}
@@ -3,11 +3,12 @@ package com.appsdeveloperblog.tutorials.junit;
 import com.appsdeveloperblog.tutorials.junit.shared.SpringApplicationContext;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
-@SpringBootApplication
+// R2DBC is only for the read path of ReactiveUsersApplication; this application stays on JPA
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @ComponentScan(basePackages = "com.appsdeveloperblog")
 public class UsersServiceSpringBootApplication {
 
@@ -15,11 +16,6 @@ public class UsersServiceSpringBootApplication {
     SpringApplication.run(UsersServiceSpringBootApplication.class, args);
   }
 
-  @Bean
-  public BCryptPasswordEncoder bCryptPasswordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
-
   @Bean
   public SpringApplicationContext springApplicationContext() {
     return new SpringApplicationContext();
@@ -0,0 +1,38 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes the application's {@code dataSource} through datasource-proxy so
+ * {@link SqlStatementCounter}, and any other {@link QueryExecutionListener} bean, sees every
+ * statement. Only that bean is wrapped; the proxy still unwraps to the Hikari pool for its metrics.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+  static final String DATA_SOURCE_BEAN = "dataSource";
+
+  // static, so registering the post-processor does not instantiate this configuration early
+  @Bean
+  public static BeanPostProcessor dataSourceProxyPostProcessor(
+      ObjectProvider<QueryExecutionListener> listeners) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource)) {
+          return bean;
+        }
+        ProxyDataSourceBuilder proxy = ProxyDataSourceBuilder.create((DataSource) bean)
+            .name(beanName);
+        listeners.orderedStream().forEach(proxy::listener);
+        return proxy.build();
+      }
+    };
+  }
+}
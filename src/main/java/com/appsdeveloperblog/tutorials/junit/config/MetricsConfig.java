@@ -0,0 +1,28 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed}. The aspect registers its timers in a composite that the actuator
+ * registry joins through a {@link MeterBinder}, so contexts without actuator metrics (slice tests)
+ * still start and simply record nothing.
+ */
+@Configuration
+public class MetricsConfig {
+
+  private final CompositeMeterRegistry timedMeters = new CompositeMeterRegistry();
+
+  @Bean
+  public TimedAspect timedAspect() {
+    return new TimedAspect(timedMeters);
+  }
+
+  @Bean
+  public MeterBinder timedMetersBinder() {
+    return timedMeters::add;
+  }
+}
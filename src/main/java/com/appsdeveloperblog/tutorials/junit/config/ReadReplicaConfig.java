@@ -0,0 +1,87 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Splits the {@code dataSource} into a primary pool ({@code spring.datasource.*}) and a replica
+ * pool ({@code spring.datasource.replica.*}) once {@code spring.datasource.replica.url} is set.
+ * Read-only transactions read from the replica; everything else, including reads outside a
+ * transaction, uses the primary.
+ *
+ * <p>The two pools are not autowire candidates, so JPA and the repositories only see the routing
+ * {@code dataSource}. That also hides them from the actuator's Hikari metrics, so
+ * {@link #poolMetrics()} binds them itself, tagged {@code pool="primary"} and
+ * {@code pool="replica"}.
+ */
+@Configuration
+@ConditionalOnProperty("spring.datasource.replica.url")
+public class ReadReplicaConfig {
+
+  private final DataSourceProperties dataSourceProperties;
+
+  public ReadReplicaConfig(DataSourceProperties dataSourceProperties) {
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  @Bean(autowireCandidate = false)
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource() {
+    HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean(autowireCandidate = false)
+  @ConfigurationProperties("spring.datasource.replica")
+  public DataSourceProperties replicaDataSourceProperties() {
+    return new DataSourceProperties();
+  }
+
+  @Bean(autowireCandidate = false)
+  @ConfigurationProperties("spring.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource() {
+    HikariDataSource dataSource = replicaDataSourceProperties().initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  @Bean
+  public MeterBinder poolMetrics() {
+    return registry -> {
+      for (HikariDataSource pool : List.of(primaryDataSource(), replicaDataSource())) {
+        if (pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+          pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+      }
+    };
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource() {
+    ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+    routingDataSource.setTargetDataSources(Map.of(
+        ReadWriteRoutingDataSource.Target.PRIMARY, primaryDataSource(),
+        ReadWriteRoutingDataSource.Target.REPLICA, replicaDataSource()));
+    routingDataSource.setDefaultTargetDataSource(primaryDataSource());
+    routingDataSource.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
@@ -0,0 +1,21 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections inside {@code @Transactional(readOnly = true)} and primary
+ * connections everywhere else. Only correct behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction
+ * manager asks for its connection before the read-only flag is bound to the thread.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  enum Target { PRIMARY, REPLICA }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        && !ReadYourWrites.isPrimaryRequired() ? Target.REPLICA : Target.PRIMARY;
+  }
+}
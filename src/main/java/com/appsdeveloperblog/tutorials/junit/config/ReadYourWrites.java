@@ -0,0 +1,66 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the keys (user ids, emails) written during the last
+ * {@code spring.datasource.replica.read-your-writes-window}, so reads of them go to the primary
+ * even inside a read-only transaction. A user who just signed up can log in and load their
+ * profile before the replica has caught up.
+ *
+ * <p>The keys are kept in this instance's memory only. Behind a load balancer, a read that lands
+ * on another instance than the write may still be served by a replica that has not caught up;
+ * route a user's requests to one instance, or keep the window to the replication lag you can
+ * accept as stale.
+ *
+ * <p>Without a replica every read goes to the one pool and this only costs a cache lookup.
+ */
+@Component
+public class ReadYourWrites {
+
+  private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+  private final Cache<String, Boolean> recentWrites;
+
+  public ReadYourWrites(
+      @Value("${spring.datasource.replica.read-your-writes-window:5s}") Duration window) {
+    this.recentWrites = Caffeine.newBuilder()
+        .expireAfterWrite(window)
+        .maximumSize(100000)
+        .build();
+  }
+
+  public void written(String... keys) {
+    for (String key : keys) {
+      if (key != null) {
+        recentWrites.put(key, Boolean.TRUE);
+      }
+    }
+  }
+
+  /**
+   * Runs the query on the primary when {@code key} was written within the window. Must be the
+   * first statement of its transaction, since the connection is picked on first use.
+   */
+  public <T> T read(String key, Supplier<T> query) {
+    if (key == null || primaryRequired.get() != null || recentWrites.getIfPresent(key) == null) {
+      return query.get();
+    }
+
+    primaryRequired.set(Boolean.TRUE);
+    try {
+      return query.get();
+    } finally {
+      primaryRequired.remove();
+    }
+  }
+
+  static boolean isPrimaryRequired() {
+    return primaryRequired.get() != null;
+  }
+}
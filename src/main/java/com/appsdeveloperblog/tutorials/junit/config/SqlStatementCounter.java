@@ -0,0 +1,92 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the statements sent through the proxied {@code dataSource} by type, across all threads,
+ * and logs every statement slower than {@code jdbc.slow-query-threshold}. Tests {@link #reset()}
+ * it before a request and assert the exact statement budget afterwards.
+ *
+ * <p>A JDBC batch counts once per statement text, since that is one round-trip.
+ */
+@Component
+public class SqlStatementCounter implements QueryExecutionListener, MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(SqlStatementCounter.class);
+
+  private final Map<QueryType, LongAdder> statements = new EnumMap<>(QueryType.class);
+  private final LongAdder slowStatements = new LongAdder();
+  private final long slowQueryThresholdMillis;
+
+  public SqlStatementCounter(
+      @Value("${jdbc.slow-query-threshold:500ms}") Duration slowQueryThreshold) {
+    this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+    for (QueryType type : QueryType.values()) {
+      statements.put(type, new LongAdder());
+    }
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+  }
+
+  @Override
+  public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    for (QueryInfo queryInfo : queryInfoList) {
+      statements.get(QueryUtils.getQueryType(queryInfo.getQuery())).increment();
+    }
+
+    if (execInfo.getElapsedTime() >= slowQueryThresholdMillis) {
+      slowStatements.increment();
+      logger.warn("Slow SQL ({} ms{}): {}", execInfo.getElapsedTime(),
+          execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+          queryInfoList.size() == 1 ? queryInfoList.get(0).getQuery() : queryInfoList.stream()
+              .map(QueryInfo::getQuery).toList());
+    }
+  }
+
+  public long count(QueryType type) {
+    return statements.get(type).sum();
+  }
+
+  public long total() {
+    return statements.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  public long slowCount() {
+    return slowStatements.sum();
+  }
+
+  public void reset() {
+    statements.values().forEach(LongAdder::reset);
+    slowStatements.reset();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    statements.forEach((type, counter) ->
+        FunctionCounter.builder("jdbc.statements", counter, LongAdder::sum)
+            .tag("type", type.name().toLowerCase())
+            .description("SQL statements executed")
+            .register(registry));
+    FunctionCounter.builder("jdbc.statements.slow", slowStatements, LongAdder::sum)
+        .description("SQL statements slower than jdbc.slow-query-threshold")
+        .register(registry);
+  }
+}
@@ -0,0 +1,67 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * An event waiting in the outbox. It is inserted in the same transaction as the change it
+ * describes and deleted once a sink has accepted it, so the table only holds the backlog.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEventEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+  @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq",
+      allocationSize = 50)
+  private long id;
+
+  @Column(nullable = false, length = 50)
+  private String eventType;
+
+  @Column(nullable = false, length = 36)
+  private String aggregateId;
+
+  @Column(nullable = false, length = 2000)
+  private String payload;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  public OutboxEventEntity() {
+  }
+
+  public OutboxEventEntity(String eventType, String aggregateId, String payload) {
+    this.eventType = eventType;
+    this.aggregateId = aggregateId;
+    this.payload = payload;
+    this.createdAt = Instant.now();
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public String getAggregateId() {
+    return aggregateId;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
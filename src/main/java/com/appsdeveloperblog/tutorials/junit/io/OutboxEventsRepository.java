@@ -0,0 +1,32 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventsRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  // FOR UPDATE SKIP LOCKED (lock timeout -2): publishers on other instances take the next batch
+  // instead of waiting for this one
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  List<OutboxEventEntity> findAllByOrderByIdAsc(Pageable pageable);
+
+  @Query("select min(event.createdAt) from OutboxEventEntity event")
+  Instant findOldestCreatedAt();
+
+  @Modifying
+  @Query("delete from OutboxEventEntity event where event.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,57 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Delivery progress of one outbox sink: the highest event id it accepted and how many events it
+ * accepted in total. Update it only while holding its row lock, see
+ * {@link OutboxOffsetsRepository#findForUpdate}.
+ */
+@Entity
+@Table(name = "outbox_offsets")
+public class OutboxOffsetEntity {
+
+  @Id
+  @Column(length = 50)
+  private String sink;
+
+  private long lastEventId;
+
+  private long deliveredCount;
+
+  private Instant lastDeliveredAt;
+
+  protected OutboxOffsetEntity() {
+  }
+
+  public OutboxOffsetEntity(String sink) {
+    this.sink = sink;
+  }
+
+  public void delivered(long lastEventId, int count) {
+    // batches may commit out of id order, the offset only moves forward
+    this.lastEventId = Math.max(this.lastEventId, lastEventId);
+    this.deliveredCount += count;
+    this.lastDeliveredAt = Instant.now();
+  }
+
+  public String getSink() {
+    return sink;
+  }
+
+  public long getLastEventId() {
+    return lastEventId;
+  }
+
+  public long getDeliveredCount() {
+    return deliveredCount;
+  }
+
+  public Instant getLastDeliveredAt() {
+    return lastDeliveredAt;
+  }
+}
@@ -0,0 +1,18 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxOffsetsRepository extends JpaRepository<OutboxOffsetEntity, String> {
+
+  // batches delivered concurrently under SKIP LOCKED take turns on their sink's offset row
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select sinkOffset from OutboxOffsetEntity sinkOffset where sinkOffset.sink = :sink")
+  Optional<OutboxOffsetEntity> findForUpdate(@Param("sink") String sink);
+}
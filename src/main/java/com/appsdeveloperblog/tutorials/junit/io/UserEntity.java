@@ -1,24 +1,52 @@
 package com.appsdeveloperblog.tutorials.junit.io;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import java.io.Serializable;
+import java.time.Instant;
+import java.util.Locale;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@Table(name = "users",
+    uniqueConstraints = @UniqueConstraint(name = UserEntity.EMAIL_CONSTRAINT,
+        columnNames = "email"),
+    indexes = @Index(name = "idx_users_email_domain", columnList = "emailDomain"))
 public class UserEntity implements Serializable {
 
+  public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
   private static final long serialVersionUID = 5313493413859894403L;
 
+  // pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round-trip per row
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+  @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
   private long id;
 
-  @Column(nullable = false, unique = true)
+  // public id, resolved through the natural-id cache instead of a query. Stored as BINARY(16):
+  // a third of the canonical string, and time-ordered, see UserIds
+  @NaturalId
+  @Convert(converter = UserIdConverter.class)
+  @Column(nullable = false, unique = true, columnDefinition = "binary(16)")
   private String userId;
 
   @Column(nullable = false, length = 50)
@@ -30,9 +58,19 @@ public class UserEntity implements Serializable {
   @Column(nullable = false, length = 120)
   private String email;
 
+  // lower-cased part after '@', kept in sync with email so domain lookups can use an index
+  @Column(length = 120)
+  private String emailDomain;
+
   @Column(nullable = false)
   private String encryptedPassword;
 
+  // incremented by Hibernate on every update; doubles as the strong ETag of the profile
+  @Version
+  private long version;
+
+  private Instant lastModified;
+
   public long getId() {
     return id;
   }
@@ -73,6 +111,10 @@ public class UserEntity implements Serializable {
     this.email = email;
   }
 
+  public String getEmailDomain() {
+    return emailDomain;
+  }
+
   public String getEncryptedPassword() {
     return encryptedPassword;
   }
@@ -81,4 +123,28 @@ public class UserEntity implements Serializable {
     this.encryptedPassword = encryptedPassword;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public Instant getLastModified() {
+    return lastModified;
+  }
+
+  @PrePersist
+  @PreUpdate
+  void beforeWrite() {
+    emailDomain = toEmailDomain(email);
+    lastModified = Instant.now();
+  }
+
+  public static String toEmailDomain(String email) {
+    if (email == null) {
+      return null;
+    }
+
+    int at = email.lastIndexOf('@');
+    return at < 0 ? null : email.substring(at + 1).toLowerCase(Locale.ROOT);
+  }
+
 }
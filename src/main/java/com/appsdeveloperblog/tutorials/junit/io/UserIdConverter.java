@@ -0,0 +1,24 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores the canonical user id string as the 16 bytes of its UUID. Query parameters go through
+ * the same conversion, so repository methods keep taking the string; callers check
+ * {@link UserIds#isValid} first, since a malformed id cannot be converted.
+ */
+@Converter
+public class UserIdConverter implements AttributeConverter<String, byte[]> {
+
+  @Override
+  public byte[] convertToDatabaseColumn(String userId) {
+    return userId == null ? null : UserIds.toBytes(userId);
+  }
+
+  @Override
+  public String convertToEntityAttribute(byte[] bytes) {
+    return bytes == null ? null : UserIds.fromBytes(bytes);
+  }
+}
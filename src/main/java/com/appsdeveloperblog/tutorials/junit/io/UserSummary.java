@@ -0,0 +1,16 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+/**
+ * Closed projection of the columns the read endpoints return. Queries returning it select only
+ * these columns (never the password hash) and produce no managed entities.
+ */
+public interface UserSummary extends UserVersion {
+
+  long getId();
+
+  String getFirstName();
+
+  String getLastName();
+
+  String getEmail();
+}
@@ -0,0 +1,16 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import java.time.Instant;
+
+/**
+ * Closed projection of what a conditional GET compares against. Loading it touches neither the
+ * profile columns nor the persistence context.
+ */
+public interface UserVersion {
+
+  String getUserId();
+
+  long getVersion();
+
+  Instant getLastModified();
+}
@@ -1,18 +1,83 @@
 package com.appsdeveloperblog.tutorials.junit.io;
 
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UsersRepository extends JpaRepository<UserEntity, Long> {
 
+  // login and the sign-up duplicate check: always read from the database, since a cached result
+  // would miss rows written by other instances. Read-only, so edits to the result never flush
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
   UserEntity findByEmail(String email);
 
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
   UserEntity findByUserId(String userId);
 
-  @Query("select user from UserEntity user where user.email like %:emailDomain")
-  List<UserEntity> findUsersWithEmailEndingWith(@Param("emailDomain") String emailDomain);
+  // bulk updates bypass @Version and @PreUpdate, so the version increment and the timestamp are
+  // spelled out to keep ETag and Last-Modified moving together
+  @Modifying(clearAutomatically = true)
+  @Query("update UserEntity user set user.encryptedPassword = :encryptedPassword, "
+      + "user.version = user.version + 1, user.lastModified = :now where user.email = :email")
+  int updateEncryptedPassword(@Param("email") String email,
+      @Param("encryptedPassword") String encryptedPassword, @Param("now") Instant now);
+
+  UserSummary findSummaryByUserId(String userId);
+
+  UserVersion findVersionByUserId(String userId);
+
+  Slice<UserVersion> findVersionsBy(Pageable pageable);
+
+  UserSummary findSummaryByEmail(String email);
+
+  Slice<UserSummary> findSummariesBy(Pageable pageable);
+
+  Slice<UserSummary> findSummariesByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Query("select user.id as id, user.userId as userId, user.firstName as firstName, "
+      + "user.lastName as lastName, user.email as email, user.version as version, "
+      + "user.lastModified as lastModified from UserEntity user order by user.id")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<UserSummary> streamAllUserSummaries();
+
+  @Query("select user.email from UserEntity user")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  Stream<String> streamAllEmails();
+
+  @Query("select user.email from UserEntity user where user.email in :emails")
+  List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  List<UserEntity> findByEmailDomain(String emailDomain);
+
+  /**
+   * Accepts the domain as "gmail.com", "@gmail.com" or the legacy LIKE pattern "%@gmail.com" and
+   * seeks the email_domain index instead of scanning for a suffix. A {@code null} domain is
+   * rejected with an {@link IllegalArgumentException}, which callers see translated to
+   * {@code InvalidDataAccessApiUsageException}.
+   */
+  default List<UserEntity> findUsersWithEmailEndingWith(String emailDomain) {
+    if (emailDomain == null) {
+      throw new IllegalArgumentException("emailDomain must not be null");
+    }
+    String domain = emailDomain;
+    while (domain.startsWith("%")) {
+      domain = domain.substring(1);
+    }
+    return findByEmailDomain(UserEntity.toEmailDomain(domain.startsWith("@")
+        ? domain
+        : "@" + domain));
+  }
 }
\ No newline at end of file
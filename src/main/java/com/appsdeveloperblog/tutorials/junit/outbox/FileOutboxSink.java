@@ -0,0 +1,69 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends each event as one JSON line to {@code outbox.sink.file.path}. A batch is forced to disk
+ * before it is acknowledged, so an acknowledged event survives a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final FileChannel channel;
+
+  public FileOutboxSink(@Value("${outbox.sink.file.path:outbox/events.jsonl}") Path path)
+      throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  @Override
+  public String name() {
+    return "file";
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEventEntity> events) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for (OutboxEventEntity event : events) {
+      ObjectNode line = OBJECT_MAPPER.createObjectNode()
+          .put("id", event.getId())
+          .put("type", event.getEventType())
+          .put("aggregateId", event.getAggregateId())
+          .put("createdAt", event.getCreatedAt().toString());
+      line.set("payload", OBJECT_MAPPER.readTree(event.getPayload()));
+      lines.append(OBJECT_MAPPER.writeValueAsString(line)).append('\n');
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    channel.close();
+  }
+}
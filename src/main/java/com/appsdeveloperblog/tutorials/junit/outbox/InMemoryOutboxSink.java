@@ -0,0 +1,45 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default sink: keeps the most recent {@code outbox.sink.memory.capacity} events in memory, for
+ * tests and for running without a downstream system.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+
+  private final int capacity;
+  private final Deque<OutboxEventEntity> events = new ArrayDeque<>();
+
+  public InMemoryOutboxSink(@Value("${outbox.sink.memory.capacity:10000}") int capacity) {
+    this.capacity = capacity;
+  }
+
+  @Override
+  public String name() {
+    return "memory";
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEventEntity> batch) {
+    for (OutboxEventEntity event : batch) {
+      if (events.size() == capacity) {
+        events.removeFirst();
+      }
+      events.addLast(event);
+    }
+  }
+
+  public synchronized List<OutboxEventEntity> events() {
+    return new ArrayList<>(events);
+  }
+}
@@ -0,0 +1,36 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the outbox rows written next to user changes. Payloads are JSON and never carry the
+ * password hash.
+ */
+public final class OutboxEvents {
+
+  public static final String USER_CREATED = "user_created";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private OutboxEvents() {
+  }
+
+  public static OutboxEventEntity userCreated(UserEntity user) {
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("userId", user.getUserId());
+    payload.put("firstName", user.getFirstName());
+    payload.put("lastName", user.getLastName());
+    payload.put("email", user.getEmail());
+    try {
+      return new OutboxEventEntity(USER_CREATED, user.getUserId(),
+          OBJECT_MAPPER.writeValueAsString(payload));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
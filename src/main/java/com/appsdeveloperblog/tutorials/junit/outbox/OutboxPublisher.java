@@ -0,0 +1,223 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventsRepository;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxOffsetEntity;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxOffsetsRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains the outbox to the configured {@link OutboxSink}. Every {@code outbox.publisher.linger}
+ * it delivers batches of up to {@code outbox.publisher.batch-size} events until the outbox is
+ * empty. Each batch is locked, handed to the sink, deleted and recorded in
+ * {@code outbox_offsets} in one transaction; if anything fails the transaction rolls back and
+ * the same batch is offered again on the next run. The sink's offset row is created before the
+ * first batch and locked for the update, so concurrent publishers neither lose counts nor fail
+ * on its insert after the sink already accepted a batch.
+ *
+ * <p>Delivery is at least once, so the sink must be idempotent. It is called inside the
+ * transaction that holds the batch's row locks, and that transaction can still roll back after
+ * the sink returns, or the sink can fail half-way through a batch. Either way the whole batch is
+ * sent again, including the events the sink already wrote.
+ *
+ * <p>{@code outbox.lag} is the age of the oldest event still in the outbox, whichever instance
+ * holds it, read after every drain. It keeps growing while the sink is down.
+ */
+@Component
+public class OutboxPublisher implements MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(OutboxPublisher.class);
+
+  private final OutboxEventsRepository outboxEvents;
+  private final OutboxOffsetsRepository outboxOffsets;
+  private final OutboxSink sink;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration linger;
+
+  private final ReentrantLock drainLock = new ReentrantLock();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private volatile Instant oldestUndelivered;
+  private volatile boolean offsetCreated;
+  private ScheduledExecutorService scheduler;
+
+  private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+  private final Timer batchTimer = Timer.builder("outbox.delivery")
+      .description("Delivering one batch: lock, publish to the sink, delete, record the offset")
+      .register(meters);
+
+  public OutboxPublisher(OutboxEventsRepository outboxEvents,
+      OutboxOffsetsRepository outboxOffsets, OutboxSink sink,
+      TransactionTemplate transactionTemplate,
+      @Value("${outbox.publisher.enabled:true}") boolean enabled,
+      @Value("${outbox.publisher.batch-size:500}") int batchSize,
+      @Value("${outbox.publisher.linger:200ms}") Duration linger) {
+    this.outboxEvents = outboxEvents;
+    this.outboxOffsets = outboxOffsets;
+    this.sink = sink;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.linger = linger;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (!enabled || scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "outbox-publisher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::drain, linger.toMillis(), linger.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Delivers batches until the outbox is empty or a batch fails.
+   *
+   * @return the number of events delivered
+   */
+  public int drain() {
+    // a lock rather than synchronized, which would pin a virtual thread's carrier during the I/O
+    drainLock.lock();
+    try {
+      int total = 0;
+      try {
+        createOffset();
+        int count;
+        do {
+          count = batchTimer.record(() -> transactionTemplate.execute(status -> deliverBatch()));
+          delivered.add(count);
+          total += count;
+        } while (count == batchSize);
+      } catch (RuntimeException e) {
+        failures.increment();
+        logger.warn("Delivering the outbox to sink {} failed, retrying in {}", sink.name(),
+            linger, e);
+      } finally {
+        refreshLag();
+      }
+      return total;
+    } finally {
+      drainLock.unlock();
+    }
+  }
+
+  public long deliveredCount() {
+    return delivered.sum();
+  }
+
+  public long failureCount() {
+    return failures.sum();
+  }
+
+  /**
+   * Seconds since the oldest event in the outbox was written, {@code 0} once it is empty. As of
+   * the last {@link #drain()}.
+   */
+  public double lagSeconds() {
+    Instant oldest = oldestUndelivered;
+    return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meters.add(registry);
+    Gauge.builder("outbox.lag", this, OutboxPublisher::lagSeconds)
+        .description("Age of the oldest outbox event not yet accepted by the sink")
+        .baseUnit("seconds")
+        .register(registry);
+    FunctionCounter.builder("outbox.delivered", delivered, LongAdder::sum)
+        .tag("sink", sink.name())
+        .description("Outbox events accepted by the sink")
+        .register(registry);
+    FunctionCounter.builder("outbox.delivery.failures", failures, LongAdder::sum)
+        .tag("sink", sink.name())
+        .description("Batches rolled back because the sink or the database failed")
+        .register(registry);
+  }
+
+  // the insert runs in its own transaction: if another instance wins the race, no batch the sink
+  // already accepted is rolled back
+  private void createOffset() {
+    if (offsetCreated) {
+      return;
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (!outboxOffsets.existsById(sink.name())) {
+          outboxOffsets.saveAndFlush(new OutboxOffsetEntity(sink.name()));
+        }
+      });
+    } catch (DataIntegrityViolationException e) {
+      logger.debug("Offset of sink {} was created concurrently", sink.name());
+    }
+    offsetCreated = true;
+  }
+
+  private void refreshLag() {
+    try {
+      oldestUndelivered = outboxEvents.findOldestCreatedAt();
+    } catch (RuntimeException e) {
+      logger.debug("Could not read the outbox lag, keeping the last value", e);
+    }
+  }
+
+  private int deliverBatch() {
+    List<OutboxEventEntity> batch = outboxEvents.findAllByOrderByIdAsc(
+        PageRequest.ofSize(batchSize));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      sink.publish(batch);
+    } catch (Exception e) {
+      throw new IllegalStateException("Sink " + sink.name() + " rejected "
+          + batch.size() + " events", e);
+    }
+
+    outboxEvents.deleteByIds(batch.stream().map(OutboxEventEntity::getId).toList());
+    OutboxOffsetEntity offset = outboxOffsets.findForUpdate(sink.name()).orElseThrow(() -> {
+      offsetCreated = false;
+      return new IllegalStateException("No outbox offset for sink " + sink.name());
+    });
+    offset.delivered(batch.get(batch.size() - 1).getId(), batch.size());
+    return batch.size();
+  }
+}
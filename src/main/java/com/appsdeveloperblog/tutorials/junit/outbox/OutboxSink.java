@@ -0,0 +1,22 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import java.util.List;
+
+/**
+ * Destination of the outbox, chosen with {@code outbox.sink}. Delivery is at least once: a batch
+ * that was accepted but not yet removed from the outbox is offered again after a failure, so
+ * consumers deduplicate on the event id.
+ */
+public interface OutboxSink {
+
+  /**
+   * Key of this sink's row in {@code outbox_offsets}.
+   */
+  String name();
+
+  /**
+   * Accepts the batch in id order; returning normally acknowledges all of it.
+   */
+  void publish(List<OutboxEventEntity> events) throws Exception;
+}
@@ -0,0 +1,66 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenService;
+import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of the servlet {@code SecurityConfig}: stateless, every request except the
+ * actuator needs a bearer token, and missing or invalid tokens are answered with 403.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+      JwtTokenService jwtTokenService) {
+    return http
+        .csrf(csrf -> csrf.disable())
+        .httpBasic(basic -> basic.disable())
+        .formLogin(form -> form.disable())
+        .logout(logout -> logout.disable())
+        .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+        .exceptionHandling(exceptions -> exceptions
+            .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+        .authorizeExchange(exchanges -> exchanges
+            .pathMatchers("/actuator/**").permitAll()
+            .anyExchange().authenticated()
+        )
+        .addFilterAt(jwtTokenValidationFilter(jwtTokenService),
+            SecurityWebFiltersOrder.AUTHENTICATION)
+        .build();
+  }
+
+  /**
+   * Counterpart of {@code JwtTokenValidationFilter}. Verification is CPU-only and usually a cache
+   * hit in {@link JwtTokenService}, so it runs inline on the event loop.
+   */
+  private static AuthenticationWebFilter jwtTokenValidationFilter(
+      JwtTokenService jwtTokenService) {
+    // the converter only returns tokens it verified, so the manager has nothing left to check
+    ReactiveAuthenticationManager verified = Mono::just;
+    AuthenticationWebFilter filter = new AuthenticationWebFilter(verified);
+    filter.setServerAuthenticationConverter(exchange -> Mono.justOrEmpty(
+            jwtTokenService.getPrincipal(exchange.getRequest().getHeaders()
+                .getFirst(SecurityConstants.HEADER_STRING)))
+        .map(principal -> new UsernamePasswordAuthenticationToken(principal, null,
+            principal.getAuthorities())));
+    return filter;
+  }
+}
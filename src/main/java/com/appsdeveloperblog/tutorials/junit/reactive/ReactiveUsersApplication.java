@@ -0,0 +1,52 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Non-blocking read-only variant of the service: {@code GET /users} and {@code GET /users/{userId}}
+ * on WebFlux, reading the {@code users} table through R2DBC and accepting the same bearer tokens.
+ * It runs as its own process next to {@link
+ * com.appsdeveloperblog.tutorials.junit.UsersServiceSpringBootApplication}, which keeps serving
+ * writes and login, and activates the {@code reactive} profile for its port and R2DBC URL.
+ *
+ * <p>Only its own package is scanned; the JPA and servlet security configuration stay out. The
+ * servlet application scans this package too, which {@link ConditionalOnWebApplication} turns
+ * into a no-op.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class,
+    ReactiveUserDetailsServiceAutoConfiguration.class})
+@ComponentScan(basePackageClasses = ReactiveUsersApplication.class)
+@Import({JwtTokenService.class, UserMapper.class})
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveUsersApplication {
+
+  public static void main(String[] args) {
+    SpringApplication application = new SpringApplication(ReactiveUsersApplication.class);
+    application.setWebApplicationType(WebApplicationType.REACTIVE);
+    application.setAdditionalProfiles("reactive");
+    application.run(args);
+  }
+
+  // Tomcat is on the classpath for the servlet application and would otherwise be picked first
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+}
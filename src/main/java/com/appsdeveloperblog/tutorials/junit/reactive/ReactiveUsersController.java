@@ -0,0 +1,62 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import com.appsdeveloperblog.tutorials.junit.shared.UserMapper;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterparts of the read endpoints of
+ * {@link com.appsdeveloperblog.tutorials.junit.ui.controllers.UsersController}, with the same
+ * paging parameters and response bodies.
+ */
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveUsersController {
+
+  private final ReactiveUsersRepository usersRepository;
+  private final UserMapper userMapper;
+
+  @Autowired
+  public ReactiveUsersController(ReactiveUsersRepository usersRepository, UserMapper userMapper) {
+    this.usersRepository = usersRepository;
+    this.userMapper = userMapper;
+  }
+
+  @GetMapping(path = "/{userId}")
+  public Mono<ResponseEntity<UserRest>> getUser(@PathVariable String userId) {
+    if (!UserIds.isValid(userId)) {
+      return Mono.just(ResponseEntity.notFound().build());
+    }
+
+    return usersRepository.findByUserId(UserIds.toBytes(userId))
+        .map(user -> ResponseEntity.ok(toUserRest(user)))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  @GetMapping
+  public Flux<UserRest> getUsers(@RequestParam(value = "page", defaultValue = "0") int page,
+      @RequestParam(value = "limit", defaultValue = "2") int limit) {
+    if (page > 0) {
+      page -= 1;
+    }
+
+    return usersRepository.findAllBy(PageRequest.of(page, limit)).map(this::toUserRest);
+  }
+
+  private UserRest toUserRest(UserSummaryRow user) {
+    return userMapper.toUserRest(userMapper.toUserDto(user));
+  }
+}
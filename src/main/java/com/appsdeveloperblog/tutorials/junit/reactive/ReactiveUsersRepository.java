@@ -0,0 +1,15 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUsersRepository extends R2dbcRepository<UserSummaryRow, Long> {
+
+  Mono<UserSummaryRow> findByUserId(byte[] userId);
+
+  Flux<UserSummaryRow> findAllBy(Pageable pageable);
+}
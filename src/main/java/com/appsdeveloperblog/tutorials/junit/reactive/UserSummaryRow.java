@@ -0,0 +1,60 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserSummary;
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * R2DBC mapping of the {@link UserSummary} columns of the {@code users} table. The table is owned
+ * by {@link com.appsdeveloperblog.tutorials.junit.io.UserEntity}; this side only reads it.
+ */
+@Table("users")
+public class UserSummaryRow implements UserSummary {
+
+  @Id
+  private long id;
+  // BINARY(16), see UserIds
+  private byte[] userId;
+  private String firstName;
+  private String lastName;
+  private String email;
+  private long version;
+  private Instant lastModified;
+
+  @Override
+  public long getId() {
+    return id;
+  }
+
+  @Override
+  public String getUserId() {
+    return UserIds.fromBytes(userId);
+  }
+
+  @Override
+  public String getFirstName() {
+    return firstName;
+  }
+
+  @Override
+  public String getLastName() {
+    return lastName;
+  }
+
+  @Override
+  public String getEmail() {
+    return email;
+  }
+
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
+  @Override
+  public Instant getLastModified() {
+    return lastModified;
+  }
+}
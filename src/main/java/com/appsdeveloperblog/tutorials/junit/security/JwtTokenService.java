@@ -0,0 +1,304 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.crypto.SecretKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs and verifies the bearer tokens handed out by {@code POST /login}. The parser and the HMAC
+ * keys are built once; tokens are signed with the active key and carry its id in the {@code kid}
+ * header, so older keys can stay listed in {@code security.jwt.keys} until their tokens expire.
+ * Tokens without a {@code kid} are checked against {@link SecurityConstants#TOKEN_SECRET}.
+ *
+ * <p>Verified tokens are remembered by SHA-256 digest until their {@code exp}, so a client reusing
+ * its token only pays for the digest. Keys dropped from {@code security.jwt.keys} therefore only
+ * stop accepting cached tokens after a restart, which is what removing a key requires anyway.
+ */
+@Component
+public class JwtTokenService implements MeterBinder {
+
+  public static final String DEFAULT_KEY_ID = "default";
+  public static final String USER_ID_CLAIM = "uid";
+  public static final String AUTHORITIES_CLAIM = "auth";
+
+  private static final long EXPIRATION_MILLIS = 864000000L;
+
+  private final Map<String, SecretKey> keys;
+  private final String activeKeyId;
+  private final SecretKey activeKey;
+  private final JwtParser parser;
+  private final Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+  private final LongAdder verified = new LongAdder();
+  private final LongAdder expired = new LongAdder();
+  private final LongAdder badSignature = new LongAdder();
+  private final LongAdder malformed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  // the timers exist from construction on; bindTo() attaches the actuator registry to them
+  private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+  private final Timer signTimer = Timer.builder("security.jwt.sign")
+      .description("Signing tokens at login")
+      .register(meters);
+  private final Timer verifyTimer = Timer.builder("security.jwt.verify")
+      .description("Signature checks of bearer tokens missing from the cache")
+      .register(meters);
+
+  /**
+   * @param activeKeyId      id of the key new tokens are signed with
+   * @param keys             extra keys as comma-separated {@code kid=base64Secret} pairs
+   * @param cacheMaximumSize verified tokens to remember, {@code 0} disables the cache
+   */
+  @Autowired
+  public JwtTokenService(@Value("${security.jwt.active-key-id:" + DEFAULT_KEY_ID + "}")
+      String activeKeyId, @Value("${security.jwt.keys:}") String keys,
+      @Value("${security.jwt.cache.maximum-size:100000}") long cacheMaximumSize) {
+    this.keys = new HashMap<>();
+    this.keys.put(DEFAULT_KEY_ID, hmacKey(SecurityConstants.TOKEN_SECRET));
+    for (String entry : keys.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      int separator = entry.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("security.jwt.keys entries must be kid=secret");
+      }
+      this.keys.put(entry.substring(0, separator).trim(),
+          hmacKey(entry.substring(separator + 1).trim()));
+    }
+
+    this.activeKeyId = activeKeyId;
+    this.activeKey = this.keys.get(activeKeyId);
+    if (activeKey == null) {
+      throw new IllegalArgumentException("No JWT key with id " + activeKeyId);
+    }
+
+    this.parser = Jwts.parserBuilder()
+        .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+          @Override
+          public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String keyId = header.getKeyId();
+            SecretKey key = JwtTokenService.this.keys.get(keyId == null ? DEFAULT_KEY_ID : keyId);
+            if (key == null) {
+              throw new UnsupportedJwtException("Unknown key id " + keyId);
+            }
+            return key;
+          }
+        })
+        .build();
+
+    this.verifiedTokens = cacheMaximumSize <= 0 ? null : Caffeine.newBuilder()
+        .maximumSize(cacheMaximumSize)
+        .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+          @Override
+          public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, value.expiresAtMillis - System.currentTimeMillis()));
+          }
+
+          @Override
+          public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+  }
+
+  public JwtTokenService() {
+    this(DEFAULT_KEY_ID, "", 10000);
+  }
+
+  /**
+   * Besides the email as subject, the token carries the public user id ({@code uid}) and the
+   * comma-separated authorities ({@code auth}) so requests can be authorized from the token alone.
+   */
+  public String createToken(UserPrincipal principal) {
+    JwtBuilder builder = Jwts.builder()
+        .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
+        .setSubject(principal.getUsername())
+        .claim(USER_ID_CLAIM, principal.getUserId());
+    if (!principal.getAuthorities().isEmpty()) {
+      builder.claim(AUTHORITIES_CLAIM,
+          AuthorityUtils.authorityListToSet(principal.getAuthorities()).stream()
+              .collect(Collectors.joining(",")));
+    }
+    return signTimer.record(() -> builder
+        .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MILLIS))
+        .signWith(activeKey, SignatureAlgorithm.HS512)
+        .compact());
+  }
+
+  /**
+   * Returns the principal described by a valid {@code Authorization} header value, or
+   * {@code null} when the header is not a bearer token or the token does not verify. Tokens issued
+   * before the {@code uid} claim existed yield a principal without user id.
+   */
+  public UserPrincipal getPrincipal(String authorizationHeader) {
+    String token = bearerToken(authorizationHeader);
+    if (token == null) {
+      return null;
+    }
+
+    ByteBuffer digest = null;
+    if (verifiedTokens != null) {
+      digest = digest(token);
+      VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+      if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+        return cached.principal;
+      }
+    }
+
+    long verifyStart = System.nanoTime();
+    try {
+      Claims claims = parser.parseClaimsJws(token).getBody();
+      if (claims.getSubject() == null) {
+        rejected.increment();
+        return null;
+      }
+      verified.increment();
+
+      String authorities = claims.get(AUTHORITIES_CLAIM, String.class);
+      UserPrincipal principal = new UserPrincipal(claims.get(USER_ID_CLAIM, String.class),
+          claims.getSubject(), "", authorities == null
+          ? AuthorityUtils.NO_AUTHORITIES
+          : AuthorityUtils.commaSeparatedStringToAuthorityList(authorities));
+      if (digest != null && claims.getExpiration() != null) {
+        verifiedTokens.put(digest,
+            new VerifiedToken(principal, claims.getExpiration().getTime()));
+      }
+      return principal;
+    } catch (ExpiredJwtException e) {
+      expired.increment();
+    } catch (SignatureException e) {
+      badSignature.increment();
+    } catch (MalformedJwtException | IllegalArgumentException e) {
+      malformed.increment();
+    } catch (JwtException e) {
+      rejected.increment();
+    } finally {
+      verifyTimer.record(System.nanoTime() - verifyStart, TimeUnit.NANOSECONDS);
+    }
+    return null;
+  }
+
+  public long failureCount() {
+    return expired.sum() + badSignature.sum() + malformed.sum() + rejected.sum();
+  }
+
+  public CacheStats cacheStats() {
+    return verifiedTokens == null ? CacheStats.empty() : verifiedTokens.stats();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meters.add(registry);
+    if (verifiedTokens != null) {
+      CaffeineCacheMetrics.monitor(registry, verifiedTokens, "verifiedTokens");
+    }
+    bindVerificationCounter(registry, verified, "verified");
+    bindVerificationCounter(registry, expired, "expired");
+    bindVerificationCounter(registry, badSignature, "bad-signature");
+    bindVerificationCounter(registry, malformed, "malformed");
+    bindVerificationCounter(registry, rejected, "rejected");
+  }
+
+  // the token is the only copy taken: prefixes are matched in place and trimmed by index.
+  // Clients echo the "Bearer "-prefixed token from the login response into setBearerAuth, so a
+  // repeated prefix is skipped as well.
+  private static String bearerToken(String header) {
+    String prefix = SecurityConstants.TOKEN_PREFIX;
+    if (header == null || !header.startsWith(prefix)) {
+      return null;
+    }
+
+    int start = 0;
+    int end = header.length();
+    while (header.startsWith(prefix, start)) {
+      start += prefix.length();
+      while (start < end && Character.isWhitespace(header.charAt(start))) {
+        start++;
+      }
+    }
+    while (end > start && Character.isWhitespace(header.charAt(end - 1))) {
+      end--;
+    }
+    return start == end ? null : header.substring(start, end);
+  }
+
+  private static ByteBuffer digest(String token) {
+    try {
+      return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static SecretKey hmacKey(String base64Secret) {
+    return Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+  }
+
+  private static void bindVerificationCounter(MeterRegistry registry, LongAdder counter,
+      String result) {
+    FunctionCounter.builder("security.jwt.verifications", counter, LongAdder::sum)
+        .tag("result", result)
+        .description("Bearer tokens checked by the JWT validation filter")
+        .register(registry);
+  }
+
+  private static final class VerifiedToken {
+
+    private final UserPrincipal principal;
+    private final long expiresAtMillis;
+
+    private VerifiedToken(UserPrincipal principal, long expiresAtMillis) {
+      this.principal = principal;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package com.appsdeveloperblog.tutorials.junit.security;
 
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,8 +12,12 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
 
 public class JwtTokenValidationFilter extends BasicAuthenticationFilter {
 
-  public JwtTokenValidationFilter(AuthenticationManager authManager) {
+  private final JwtTokenService jwtTokenService;
+
+  public JwtTokenValidationFilter(AuthenticationManager authManager,
+      JwtTokenService jwtTokenService) {
     super(authManager);
+    this.jwtTokenService = jwtTokenService;
   }
 
   @Override
@@ -22,39 +25,14 @@ public class JwtTokenValidationFilter extends BasicAuthenticationFilter {
       HttpServletResponse res,
       FilterChain chain) throws IOException, ServletException {
 
-    String token = req.getHeader(SecurityConstants.HEADER_STRING);
+    UserPrincipal principal = jwtTokenService.getPrincipal(
+        req.getHeader(SecurityConstants.HEADER_STRING));
 
-    if (token != null && token.startsWith(SecurityConstants.TOKEN_PREFIX)) {
-      UsernamePasswordAuthenticationToken authentication = getAuthentication(token);
-      if (authentication != null) {
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-      }
+    if (principal != null) {
+      SecurityContextHolder.getContext().setAuthentication(
+          new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
     }
 
     chain.doFilter(req, res);
   }
-
-  private UsernamePasswordAuthenticationToken getAuthentication(String token) {
-    try {
-
-      token = token.replace(SecurityConstants.TOKEN_PREFIX, "").trim();
-
-      // Parse the token and extract subject (username/email)
-      String user = Jwts.parser()
-          .setSigningKey(SecurityConstants.TOKEN_SECRET)
-          .parseClaimsJws(token)
-          .getBody()
-          .getSubject();
-
-      if (user != null) {
-        logger.info("✅ Parsed user from JWT: " + user);
-        return new UsernamePasswordAuthenticationToken(user, null, null);
-      }
-    } catch (Exception e) {
-      logger.info("❌ Failed to parse JWT: " + e.getMessage());
-      e.printStackTrace();
-    }
-
-    return null;
-  }
-}
\ No newline at end of file
+}
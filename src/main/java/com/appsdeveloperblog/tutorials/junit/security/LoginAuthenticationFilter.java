@@ -1,37 +1,50 @@
 package com.appsdeveloperblog.tutorials.junit.security;
 
-import com.appsdeveloperblog.tutorials.junit.service.UsersService;
-import com.appsdeveloperblog.tutorials.junit.shared.SpringApplicationContext;
-import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.util.StreamUtils;
 
 public class LoginAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
   private final AuthenticationManager authenticationManager;
+  private final JwtTokenService jwtTokenService;
+  private final PasswordHashingExecutor passwordHashingExecutor;
 
-  public LoginAuthenticationFilter(AuthenticationManager authenticationManager) {
+  public LoginAuthenticationFilter(AuthenticationManager authenticationManager,
+      JwtTokenService jwtTokenService, PasswordHashingExecutor passwordHashingExecutor) {
     super();
     this.authenticationManager = authenticationManager;
+    this.jwtTokenService = jwtTokenService;
+    this.passwordHashingExecutor = passwordHashingExecutor;
     setFilterProcessesUrl("/login");
   }
 
+  /**
+   * Checks the credentials on the password hashing pool and finishes the response from there, so
+   * the request thread is released during BCrypt. Always returns {@code null}: authentication is
+   * still in progress when this method returns. A login still waiting after
+   * {@link PasswordHashingExecutor#timeout()} is cancelled and answered with 503.
+   */
   @Override
   public Authentication attemptAuthentication(HttpServletRequest req,
       HttpServletResponse res) throws AuthenticationException {
@@ -42,37 +55,75 @@ public class LoginAuthenticationFilter extends UsernamePasswordAuthenticationFil
 //            UserLoginRequestModel creds = new ObjectMapper()
 //                    .readValue(jsonRequest.get("body"), UserLoginRequestModel.class);
 
-      return authenticationManager.authenticate(
+      UsernamePasswordAuthenticationToken authenticationRequest =
           new UsernamePasswordAuthenticationToken(
               jsonRequest.get("email"),
               jsonRequest.get("password"),
-              new ArrayList<>())
-      );
+              new ArrayList<>());
+
+      AsyncContext asyncContext = req.startAsync();
+      asyncContext.setTimeout(passwordHashingExecutor.timeout().toMillis());
+      // the response is written once, by whichever of the login and the timeout comes first
+      AtomicBoolean answered = new AtomicBoolean();
+      try {
+        CompletableFuture<Authentication> login = passwordHashingExecutor
+            .submit(() -> authenticationManager.authenticate(authenticationRequest));
+        asyncContext.addListener(new LoginTimeoutListener(login, answered));
+        login.whenComplete((authentication, failure) -> {
+          if (answered.compareAndSet(false, true)) {
+            completeLogin(asyncContext, authentication, failure);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        answered.set(true);
+        serviceUnavailable(res);
+        asyncContext.complete();
+      }
+      return null;
 
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  private void completeLogin(AsyncContext asyncContext, Authentication authentication,
+      Throwable failure) {
+    HttpServletRequest req = (HttpServletRequest) asyncContext.getRequest();
+    HttpServletResponse res = (HttpServletResponse) asyncContext.getResponse();
+    try {
+      if (failure == null) {
+        successfulAuthentication(req, res, null, authentication);
+      } else {
+        unsuccessfulAuthentication(req, res, failure instanceof AuthenticationException
+            ? (AuthenticationException) failure
+            : new AuthenticationServiceException(failure.getMessage(), failure));
+      }
+    } catch (IOException | ServletException e) {
+      logger.warn("Could not write the login response", e);
+    } finally {
+      asyncContext.complete();
+    }
+  }
+
+  private static void serviceUnavailable(HttpServletResponse res) {
+    res.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    res.setHeader(HttpHeaders.RETRY_AFTER,
+        String.valueOf(PasswordHashingExecutor.RETRY_AFTER_SECONDS));
+  }
+
   @Override
   protected void successfulAuthentication(HttpServletRequest req,
       HttpServletResponse res,
       FilterChain chain,
       Authentication auth) throws IOException, ServletException {
 
-    String userName = ((UserDetails) auth.getPrincipal()).getUsername();
+    UserPrincipal principal = (UserPrincipal) auth.getPrincipal();
 
-    String token = Jwts.builder()
-        .setSubject(userName)
-        .setExpiration(new Date(System.currentTimeMillis() + (long) 864000000))
-        .signWith(SignatureAlgorithm.HS512, SecurityConstants.TOKEN_SECRET)
-        .compact();
-    UsersService userService = (UsersService) SpringApplicationContext.getBean("usersService");
-    UserDto userDto = userService.getUser(userName);
+    String token = jwtTokenService.createToken(principal);
 
     // ✅ Build response JSON
     Map<String, Object> responseBody = Map.of(
-        "userId", userDto.getUserId(),
+        "userId", principal.getUserId(),
         "token", SecurityConstants.TOKEN_PREFIX + token
     );
 
@@ -82,5 +133,40 @@ public class LoginAuthenticationFilter extends UsernamePasswordAuthenticationFil
     new ObjectMapper().writeValue(res.getWriter(), responseBody);
   }
 
+  private static final class LoginTimeoutListener implements AsyncListener {
+
+    private final CompletableFuture<Authentication> login;
+    private final AtomicBoolean answered;
+
+    private LoginTimeoutListener(CompletableFuture<Authentication> login,
+        AtomicBoolean answered) {
+      this.login = login;
+      this.answered = answered;
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      if (answered.compareAndSet(false, true)) {
+        login.cancel(false);
+        serviceUnavailable((HttpServletResponse) event.getSuppliedResponse());
+        event.getAsyncContext().complete();
+      }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // the client is gone; only make sure a still-queued login is never hashed
+      answered.set(true);
+      login.cancel(false);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
   }
+}
 
@@ -0,0 +1,169 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed-size pool for requests dominated by BCrypt: sign-up and login. Keeping them off the
+ * Tomcat request threads means a burst of logins cannot starve cheap reads. The queue is bounded;
+ * once it is full {@link #submit} throws {@link RejectedExecutionException} immediately and the
+ * caller answers 503 rather than letting the burst pile up. Callers give up on a task after
+ * {@link #timeout()}; a task cancelled while still queued is dropped without running.
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+  public static final long RETRY_AFTER_SECONDS = 1;
+
+  private final ThreadPoolExecutor executor;
+  private final Duration timeout;
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  @Autowired
+  public PasswordHashingExecutor(
+      @Value("${security.password-hashing.threads:0}") int threads,
+      @Value("${security.password-hashing.queue-capacity:200}") int queueCapacity,
+      @Value("${security.password-hashing.timeout:10s}") Duration timeout) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.timeout = timeout;
+  }
+
+  public PasswordHashingExecutor(int threads, int queueCapacity) {
+    this(threads, queueCapacity, Duration.ofSeconds(10));
+  }
+
+  /**
+   * Runs the task on the pool. Fails fast with {@link RejectedExecutionException} when the queue
+   * is full.
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    long submittedAt = System.nanoTime();
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        if (future.isDone()) {
+          return;
+        }
+        waitNanos.add(System.nanoTime() - submittedAt);
+        started.increment();
+        try {
+          future.complete(task.get());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw e;
+    }
+    return future;
+  }
+
+  /**
+   * Applies {@code task} to every input on the pool and returns the results in input order. At
+   * most one task per pool thread is queued at a time, so a bulk caller such as an import waits
+   * for its own work instead of taking the queue from logins. Fails with
+   * {@link RejectedExecutionException} like {@link #submit} when the queue is full.
+   */
+  public <T, R> List<R> invokeAll(List<T> inputs, Function<T, R> task) {
+    int window = executor.getMaximumPoolSize();
+    List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+    try {
+      for (int i = 0; i < inputs.size(); i++) {
+        if (i >= window) {
+          futures.get(i - window).join();
+        }
+        T input = inputs.get(i);
+        futures.add(submit(() -> task.apply(input)));
+      }
+
+      List<R> results = new ArrayList<>(inputs.size());
+      for (CompletableFuture<R> future : futures) {
+        results.add(future.join());
+      }
+      return results;
+    } catch (CompletionException e) {
+      futures.forEach(future -> future.cancel(false));
+      throw e.getCause() instanceof RuntimeException
+          ? (RuntimeException) e.getCause()
+          : e;
+    } catch (RejectedExecutionException e) {
+      futures.forEach(future -> future.cancel(false));
+      throw e;
+    }
+  }
+
+  /**
+   * How long a caller waits for its task, queue time included, before answering 503.
+   */
+  public Duration timeout() {
+    return timeout;
+  }
+
+  public int queueSize() {
+    return executor.getQueue().size();
+  }
+
+  public long rejectedCount() {
+    return rejected.sum();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("security.password.hashing.queue", this, PasswordHashingExecutor::queueSize)
+        .description("Sign-up and login requests waiting for a password hashing thread")
+        .register(registry);
+    Gauge.builder("security.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+    FunctionTimer.builder("security.password.hashing.wait", this, e -> e.started.sum(),
+            e -> e.waitNanos.sum(), TimeUnit.NANOSECONDS)
+        .description("Time requests spent queued before a hashing thread picked them up")
+        .register(registry);
+    FunctionCounter.builder("security.password.hashing.rejected", rejected, LongAdder::sum)
+        .description("Requests answered with 503 because the hashing queue was full")
+        .register(registry);
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses the BCrypt cost for this deployment. Unless {@code security.password-hashing.bcrypt-cost}
+ * pins it, the cost is calibrated once at startup to the highest value whose hash still fits in
+ * {@code security.password-hashing.target-latency} on this hardware.
+ *
+ * <p>Every stored hash records its algorithm ({@code {bcrypt}}) and cost ({@code $2a$NN$}), so
+ * hashes below the current cost are recognised by {@link PasswordEncoder#upgradeEncoding} and
+ * rehashed on the next successful login.
+ */
+@Component
+public class PasswordHashingPolicy implements MeterBinder {
+
+  public static final String BCRYPT_ID = "bcrypt";
+
+  private static final Logger logger = LoggerFactory.getLogger(PasswordHashingPolicy.class);
+
+  private static final int PROBE_COST = 6;
+
+  private final int bcryptCost;
+
+  private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+  private final Timer encodeTimer = hashingTimer("encode");
+  private final Timer matchesTimer = hashingTimer("matches");
+
+  public PasswordHashingPolicy(@Value("${security.password-hashing.bcrypt-cost:0}") int fixedCost,
+      @Value("${security.password-hashing.target-latency:250ms}") Duration targetLatency,
+      @Value("${security.password-hashing.min-cost:10}") int minCost,
+      @Value("${security.password-hashing.max-cost:14}") int maxCost) {
+    if (fixedCost > 0) {
+      this.bcryptCost = fixedCost;
+    } else {
+      this.bcryptCost = calibrate(targetLatency, minCost, maxCost);
+      logger.info("Calibrated BCrypt cost {} for a target of {}", bcryptCost, targetLatency);
+    }
+  }
+
+  public int bcryptCost() {
+    return bcryptCost;
+  }
+
+  /**
+   * Encodes with the current cost and times every {@code encode} and {@code matches} call.
+   */
+  public PasswordEncoder passwordEncoder() {
+    return new TimedPasswordEncoder(new DelegatingPasswordEncoder(BCRYPT_ID,
+        Map.of(BCRYPT_ID, new BCryptPasswordEncoder(bcryptCost))), encodeTimer, matchesTimer);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meters.add(registry);
+    Gauge.builder("security.password.hashing.bcrypt.cost", this, PasswordHashingPolicy::bcryptCost)
+        .description("BCrypt cost new password hashes are created with")
+        .register(registry);
+  }
+
+  /**
+   * Every cost step doubles the work, so one cheap probe is enough to extrapolate.
+   */
+  static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_COST);
+    probe.encode("calibration");
+    long fastest = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long start = System.nanoTime();
+      probe.encode("calibration");
+      fastest = Math.min(fastest, System.nanoTime() - start);
+    }
+
+    double headroom = (double) targetLatency.toNanos() / Math.max(1, fastest);
+    int cost = PROBE_COST + (int) Math.floor(Math.log(headroom) / Math.log(2));
+    return Math.max(minCost, Math.min(maxCost, cost));
+  }
+
+  private Timer hashingTimer(String operation) {
+    return Timer.builder("security.password.hashing")
+        .tag("operation", operation)
+        .description("BCrypt work of sign-up and login")
+        .register(meters);
+  }
+
+  private static final class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    private TimedPasswordEncoder(PasswordEncoder delegate, Timer encodeTimer,
+        Timer matchesTimer) {
+      this.delegate = delegate;
+      this.encodeTimer = encodeTimer;
+      this.matchesTimer = matchesTimer;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+      return delegate.upgradeEncoding(encodedPassword);
+    }
+  }
+}
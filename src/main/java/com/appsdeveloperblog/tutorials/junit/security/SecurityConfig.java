@@ -11,7 +11,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -26,7 +25,8 @@ public class SecurityConfig {
 
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http,
-      AuthenticationConfiguration authConfig) throws Exception {
+      AuthenticationConfiguration authConfig, JwtTokenService jwtTokenService,
+      PasswordHashingExecutor passwordHashingExecutor) throws Exception {
     AuthenticationManager authenticationManager = authConfig.getAuthenticationManager();
     http
         .csrf(csrf -> csrf.disable())
@@ -37,15 +37,19 @@ public class SecurityConfig {
             .requestMatchers("/actuator/**").permitAll()
             .anyRequest().authenticated()
         )
-        .addFilter(new LoginAuthenticationFilter(authenticationManager))
-        .addFilter(new JwtTokenValidationFilter(authenticationManager));
+        .addFilter(new LoginAuthenticationFilter(authenticationManager, jwtTokenService,
+            passwordHashingExecutor))
+        .addFilter(new JwtTokenValidationFilter(authenticationManager, jwtTokenService));
 
     return http.build();
   }
 
+  /**
+   * The only password encoder. Hashes are stored with their {@code {bcrypt}} id prefix, so it
+   * delegates by id; the cost comes from {@link PasswordHashingPolicy}.
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(PasswordHashingPolicy passwordHashingPolicy) {
+    return passwordHashingPolicy.passwordEncoder();
   }
 }
\ No newline at end of file
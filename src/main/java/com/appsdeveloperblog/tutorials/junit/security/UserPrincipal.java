@@ -0,0 +1,24 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Authenticated user as loaded for {@code POST /login}. Carries the public user id so the login
+ * response can be written without loading the user a second time.
+ */
+public class UserPrincipal extends User {
+
+  private final String userId;
+
+  public UserPrincipal(String userId, String email, String encryptedPassword,
+      Collection<? extends GrantedAuthority> authorities) {
+    super(email, encryptedPassword, authorities);
+    this.userId = userId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+}
@@ -0,0 +1,160 @@
+package com.appsdeveloperblog.tutorials.junit.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lock-free Bloom filter over the emails of all known users. A negative answer means the email is
+ * definitely not registered and the database lookup can be skipped; a positive answer only means
+ * it might be.
+ *
+ * <p>Until {@link #markWarm()} is called every email is reported as possibly present, so a
+ * partially loaded filter never produces a false negative. Emails written to the database by
+ * anything other than this instance are only picked up by the next warm-up, so the filter is off
+ * unless {@code users.email-filter.enabled=true}; only enable it for a single instance per
+ * database.
+ */
+@Component
+public class EmailBloomFilter implements MeterBinder {
+
+  private final boolean enabled;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLongArray words;
+  private final AtomicLong bitsSet = new AtomicLong();
+  private final LongAdder definiteNegatives = new LongAdder();
+  private final LongAdder possiblePositives = new LongAdder();
+  private volatile boolean warm;
+
+  public EmailBloomFilter(@Value("${users.email-filter.enabled:false}") boolean enabled,
+      @Value("${users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${users.email-filter.false-positive-probability:0.01}")
+      double falsePositiveProbability) {
+    this.enabled = enabled;
+
+    long bits = (long) Math.ceil(
+        -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE);
+    this.words = new AtomicLongArray(enabled ? words : 1);
+    this.bitCount = (long) this.words.length() * Long.SIZE;
+    this.hashCount = Math.max(1,
+        (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  public boolean mightContain(String email) {
+    if (!enabled || !warm || email == null) {
+      return true;
+    }
+
+    long hash1 = hash1(email);
+    long hash2 = hash2(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        definiteNegatives.increment();
+        return false;
+      }
+    }
+    possiblePositives.increment();
+    return true;
+  }
+
+  public void add(String email) {
+    if (!enabled || email == null) {
+      return;
+    }
+
+    long hash1 = hash1(email);
+    long hash2 = hash2(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long word;
+      do {
+        word = words.get(index);
+        if ((word & mask) != 0) {
+          break;
+        }
+      } while (!words.compareAndSet(index, word, word | mask));
+      if ((word & mask) == 0) {
+        bitsSet.incrementAndGet();
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void markWarm() {
+    warm = true;
+  }
+
+  public boolean isWarm() {
+    return warm;
+  }
+
+  /**
+   * Probability that an unknown email is reported as possibly present, given the bits set so
+   * far.
+   */
+  public double falsePositiveProbability() {
+    return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+  }
+
+  public long memoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("users.email.filter.false.positive.probability", this,
+            EmailBloomFilter::falsePositiveProbability)
+        .description("Estimated false-positive rate of the known-email Bloom filter")
+        .register(registry);
+    Gauge.builder("users.email.filter.memory", this, EmailBloomFilter::memoryBytes)
+        .baseUnit("bytes")
+        .description("Heap used by the known-email Bloom filter bit set")
+        .register(registry);
+    FunctionCounter.builder("users.email.filter.lookups", definiteNegatives, LongAdder::sum)
+        .tag("result", "definite-negative")
+        .description("Email lookups answered without touching the database")
+        .register(registry);
+    FunctionCounter.builder("users.email.filter.lookups", possiblePositives, LongAdder::sum)
+        .tag("result", "possible-positive")
+        .register(registry);
+  }
+
+  // emails are compared case-insensitively so the filter can only err towards "maybe"
+  private static long hash1(String email) {
+    long hash = 0xcbf29ce484222325L;
+    String normalized = email.toLowerCase(Locale.ROOT);
+    for (int i = 0; i < normalized.length(); i++) {
+      hash ^= normalized.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long hash2(long hash1) {
+    return mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
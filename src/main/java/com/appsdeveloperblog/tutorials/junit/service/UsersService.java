@@ -1,16 +1,37 @@
 package com.appsdeveloperblog.tutorials.junit.service;
 
+import com.appsdeveloperblog.tutorials.junit.io.UserVersion;
 import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.shared.UserImportResult;
 import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
-public interface UsersService extends UserDetailsService {
+public interface UsersService extends UserDetailsService, UserDetailsPasswordService {
 
   UserDto createUser(UserDto user);
 
+  List<UserImportResult> createUsers(List<UserDto> users);
+
   List<UserDto> getUsers(int page, int limit);
 
+  Slice<UserDto> getUsersAfter(long lastId, int limit);
+
   UserDto getUser(String email);
 
   UserDto getUserByUserId(String userId);
+
+  /**
+   * Version of one user without loading the profile, or {@code null} if there is no such user.
+   */
+  UserVersion getUserVersion(String userId);
+
+  /**
+   * Versions of the users {@link #getUsers} returns for the same page.
+   */
+  List<UserVersion> getUserVersions(int page, int limit);
+
+  void exportUsers(Consumer<UserDto> consumer);
 }
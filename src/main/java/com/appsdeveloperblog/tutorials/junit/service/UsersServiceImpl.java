@@ -1,34 +1,79 @@
 package com.appsdeveloperblog.tutorials.junit.service;
 
+import com.appsdeveloperblog.tutorials.junit.config.ReadYourWrites;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventsRepository;
 import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UserSummary;
+import com.appsdeveloperblog.tutorials.junit.io.UserVersion;
 import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.outbox.OutboxEvents;
+import com.appsdeveloperblog.tutorials.junit.security.PasswordHashingExecutor;
+import com.appsdeveloperblog.tutorials.junit.security.UserPrincipal;
+import com.appsdeveloperblog.tutorials.junit.shared.UserChangedEvent;
 import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.shared.UserImportResult;
+import com.appsdeveloperblog.tutorials.junit.shared.UserImportResult.Status;
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import com.appsdeveloperblog.tutorials.junit.shared.UserMapper;
 import com.appsdeveloperblog.userservice.exception.UsersServiceException;
-import java.lang.reflect.Type;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
-import org.springframework.beans.BeanUtils;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service("usersService")
+@Timed("users.service")
 public class UsersServiceImpl implements UsersService {
 
   private UsersRepository usersRepository;
   private PasswordEncoder passwordEncoder;
 
   @Autowired
-  private ModelMapper modelMapper;
+  private UserMapper userMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private EmailBloomFilter emailBloomFilter;
+
+  @Autowired
+  private ReadYourWrites readYourWrites;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private OutboxEventsRepository outboxEventsRepository;
+
+  @Autowired
+  private PasswordHashingExecutor passwordHashingExecutor;
+
+  @PersistenceContext
+  private EntityManager entityManager;
 
   @Autowired
   public UsersServiceImpl(UsersRepository usersRepository, PasswordEncoder passwordEncoder) {
@@ -36,79 +81,282 @@ public class UsersServiceImpl implements UsersService {
     this.passwordEncoder = passwordEncoder;
   }
 
+  /**
+   * Checks for a duplicate and inserts the user and its {@code user_created} outbox event in one
+   * transaction. The password is hashed before the transaction starts, so the pooled connection
+   * is not held for the duration of BCrypt.
+   */
   @Override
   public UserDto createUser(UserDto user) {
+    String encryptedPassword = passwordEncoder.encode(user.getPassword());
 
-    if (usersRepository.findByEmail(user.getEmail()) != null) {
-      throw new UsersServiceException("Record already exists");
+    UserEntity storedUserDetails;
+    try {
+      storedUserDetails = transactionTemplate.execute(status -> {
+        if (emailBloomFilter.mightContain(user.getEmail())
+            && usersRepository.findByEmail(user.getEmail()) != null) {
+          throw new UsersServiceException("Record already exists");
+        }
+
+        UserEntity userEntity = userMapper.toUserEntity(user);
+        userEntity.setUserId(UserIds.newUserId());
+        userEntity.setEncryptedPassword(encryptedPassword);
+        UserEntity storedUser = usersRepository.save(userEntity);
+        outboxEventsRepository.save(OutboxEvents.userCreated(storedUser));
+        return storedUser;
+      });
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent sign-up with the same email committed between the lookup and the insert
+      if (isEmailTaken(e)) {
+        throw new UsersServiceException("Record already exists");
+      }
+      throw e;
     }
 
-    UserEntity userEntity = modelMapper.map(user, UserEntity.class);
+    emailBloomFilter.add(storedUserDetails.getEmail());
+    readYourWrites.written(storedUserDetails.getUserId(), storedUserDetails.getEmail());
+    eventPublisher.publishEvent(new UserChangedEvent(storedUserDetails.getUserId()));
+
+    UserDto returnValue = userMapper.toUserDto(storedUserDetails);
 
-    String publicUserId = UUID.randomUUID().toString();
-    userEntity.setUserId(publicUserId);
-    userEntity.setEncryptedPassword("{bcrypt}" + passwordEncoder.encode(user.getPassword()));
+    return returnValue;
+  }
 
-    UserEntity storedUserDetails = usersRepository.save(userEntity);
+  /**
+   * Like {@link #createUser}, hashes outside any transaction: the duplicate lookup and the inserts
+   * each run in a short transaction of their own. Emails taken in between are caught by a second
+   * lookup in the insert transaction and reported as duplicates.
+   */
+  @Override
+  public List<UserImportResult> createUsers(List<UserDto> users) {
+    Set<String> emails = new HashSet<>();
+    for (UserDto user : users) {
+      if (emailBloomFilter.mightContain(user.getEmail())) {
+        emails.add(user.getEmail());
+      }
+    }
+    // read-write, so the lookup runs on the primary like the insert it guards
+    Set<String> takenEmails = emails.isEmpty()
+        ? new HashSet<>()
+        : new HashSet<>(transactionTemplate.execute(
+            status -> usersRepository.findExistingEmails(emails)));
 
-    UserDto returnValue = modelMapper.map(storedUserDetails, UserDto.class);
+    List<UserImportResult> results = new ArrayList<>(users.size());
+    List<UserDto> newUsers = new ArrayList<>(users.size());
+    List<UserImportResult> newUserResults = new ArrayList<>(users.size());
+    for (int i = 0; i < users.size(); i++) {
+      UserDto user = users.get(i);
+      if (!takenEmails.add(user.getEmail())) {
+        results.add(duplicate(i, user.getEmail()));
+        continue;
+      }
 
-    return returnValue;
+      UserImportResult result = new UserImportResult(i, Status.CREATED, user.getEmail(), null,
+          null);
+      results.add(result);
+      newUsers.add(user);
+      newUserResults.add(result);
+    }
+
+    // BCrypt dominates the cost of an import, so hash the chunk on the password hashing pool,
+    // where it queues behind sign-ups and logins instead of competing with them
+    List<String> encryptedPasswords = passwordHashingExecutor.invokeAll(newUsers,
+        user -> passwordEncoder.encode(user.getPassword()));
+
+    List<UserEntity> userEntities = new ArrayList<>(newUsers.size());
+    for (int i = 0; i < newUsers.size(); i++) {
+      UserEntity userEntity = userMapper.toUserEntity(newUsers.get(i));
+      userEntity.setUserId(UserIds.newUserId());
+      userEntity.setEncryptedPassword(encryptedPasswords.get(i));
+      userEntities.add(userEntity);
+    }
+
+    Set<String> takenMeanwhile = userEntities.isEmpty()
+        ? Set.of()
+        : transactionTemplate.execute(status -> insertNewUsers(userEntities));
+
+    // only once committed, like createUser
+    for (int i = 0; i < userEntities.size(); i++) {
+      UserEntity userEntity = userEntities.get(i);
+      UserImportResult result = newUserResults.get(i);
+      if (takenMeanwhile.contains(userEntity.getEmail())) {
+        results.set(result.getIndex(), duplicate(result.getIndex(), userEntity.getEmail()));
+        continue;
+      }
+      result.setUserId(userEntity.getUserId());
+      emailBloomFilter.add(userEntity.getEmail());
+      readYourWrites.written(userEntity.getUserId(), userEntity.getEmail());
+      eventPublisher.publishEvent(new UserChangedEvent(userEntity.getUserId()));
+    }
+
+    return results;
+  }
+
+  // inserts the users whose email is still free and returns the emails that were taken
+  private Set<String> insertNewUsers(List<UserEntity> userEntities) {
+    Set<String> takenMeanwhile = new HashSet<>(usersRepository.findExistingEmails(
+        userEntities.stream().map(UserEntity::getEmail).toList()));
+    List<UserEntity> newUsers = takenMeanwhile.isEmpty()
+        ? userEntities
+        : userEntities.stream().filter(user -> !takenMeanwhile.contains(user.getEmail())).toList();
+
+    usersRepository.saveAll(newUsers);
+    outboxEventsRepository.saveAll(newUsers.stream().map(OutboxEvents::userCreated).toList());
+    usersRepository.flush();
+    entityManager.clear();
+    return takenMeanwhile;
+  }
+
+  private static boolean isEmailTaken(DataIntegrityViolationException e) {
+    return e.getCause() instanceof ConstraintViolationException violation
+        && violation.getConstraintName() != null
+        && violation.getConstraintName().toLowerCase(Locale.ROOT)
+            .contains(UserEntity.EMAIL_CONSTRAINT);
+  }
+
+  private static UserImportResult duplicate(int index, String email) {
+    return new UserImportResult(index, Status.DUPLICATE, email, null, "Record already exists");
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<UserDto> getUsers(int page, int limit) {
-    List<UserDto> returnValue = new ArrayList<>();
-
     if (page > 0) {
       page -= 1;
     }
 
     Pageable pageableRequest = PageRequest.of(page, limit);
 
-    Page<UserEntity> usersPage = usersRepository.findAll(pageableRequest);
-    List<UserEntity> users = usersPage.getContent();
-
-    Type listType = new TypeToken<List<UserDto>>() {
-    }.getType();
-    returnValue = new ModelMapper().map(users, listType);
+    Slice<UserSummary> users = usersRepository.findSummariesBy(pageableRequest);
 
+    List<UserDto> returnValue = new ArrayList<>(users.getNumberOfElements());
+    for (UserSummary user : users) {
+      returnValue.add(userMapper.toUserDto(user));
+    }
     return returnValue;
   }
 
   @Override
-  public UserDto getUser(String email) {
-    UserEntity userEntity = usersRepository.findByEmail(email);
+  @Transactional(readOnly = true)
+  public List<UserVersion> getUserVersions(int page, int limit) {
+    if (page > 0) {
+      page -= 1;
+    }
 
-    if (userEntity == null) {
+    return usersRepository.findVersionsBy(PageRequest.of(page, limit)).getContent();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<UserDto> getUsersAfter(long lastId, int limit) {
+    Slice<UserSummary> usersSlice = usersRepository.findSummariesByIdGreaterThanOrderByIdAsc(
+        lastId, PageRequest.ofSize(limit));
+
+    return usersSlice.map(userMapper::toUserDto);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public UserDto getUser(String email) {
+    if (!emailBloomFilter.mightContain(email)) {
       throw new UsernameNotFoundException(email);
     }
 
-    UserDto returnValue = new UserDto();
-    BeanUtils.copyProperties(userEntity, returnValue);
+    UserSummary user = readYourWrites.read(email,
+        () -> usersRepository.findSummaryByEmail(email));
 
-    return returnValue;
+    if (user == null) {
+      throw new UsernameNotFoundException(email);
+    }
+
+    return userMapper.toUserDto(user);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-    UserEntity userEntity = usersRepository.findByEmail(email);
+    if (!emailBloomFilter.mightContain(email)) {
+      throw new UsernameNotFoundException(email);
+    }
+
+    UserEntity userEntity = readYourWrites.read(email, () -> usersRepository.findByEmail(email));
 
     if (userEntity == null) {
       throw new UsernameNotFoundException(email);
     }
 
-    return new User(userEntity.getEmail(), userEntity.getEncryptedPassword(), new ArrayList<>());
+    return new UserPrincipal(userEntity.getUserId(), userEntity.getEmail(),
+        userEntity.getEncryptedPassword(), new ArrayList<>());
+  }
+
+  /**
+   * Called by the authentication provider after a successful login whose stored hash is below
+   * the current {@code PasswordHashingPolicy}; the new hash is computed from the password just
+   * verified.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    usersRepository.updateEncryptedPassword(user.getUsername(), newPassword, Instant.now());
+
+    String userId = user instanceof UserPrincipal ? ((UserPrincipal) user).getUserId() : null;
+    if (userId != null) {
+      // the version moved, so a cached profile would keep serving the old ETag
+      eventPublisher.publishEvent(new UserChangedEvent(userId));
+    }
+    return new UserPrincipal(userId, user.getUsername(), newPassword, user.getAuthorities());
   }
 
   @Override
+  @Transactional(readOnly = true)
   public UserDto getUserByUserId(String userId) {
-    UserEntity userEntity = usersRepository.findByUserId(userId);
+    if (!UserIds.isValid(userId)) {
+      throw new UsernameNotFoundException("User ID: " + userId);
+    }
 
-    if (userEntity == null) {
+    // a natural-id load is answered by the second-level cache once the user was read or created
+    UserEntity user = readYourWrites.read(userId, () -> entityManager.unwrap(Session.class)
+        .bySimpleNaturalId(UserEntity.class)
+        .load(userId));
+
+    if (user == null) {
       throw new UsernameNotFoundException("User ID: " + userId);
     }
 
-    return modelMapper.map(userEntity, UserDto.class);
+    // the entity carries the hash, the profile must not
+    return userMapper.toProfileDto(user);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public UserVersion getUserVersion(String userId) {
+    if (!UserIds.isValid(userId)) {
+      return null;
+    }
+    return readYourWrites.read(userId, () -> usersRepository.findVersionByUserId(userId));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void exportUsers(Consumer<UserDto> consumer) {
+    // projections are never managed, so the persistence context stays empty however many rows
+    try (Stream<UserSummary> users = usersRepository.streamAllUserSummaries()) {
+      users.forEach(user -> consumer.accept(userMapper.toUserDto(user)));
+    }
+  }
+
+  // deliberately read-write, so it streams from the primary: emails missing from a lagging
+  // replica would become false negatives and let duplicates through to the insert
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void warmEmailBloomFilter() {
+    if (!emailBloomFilter.isEnabled()) {
+      return;
+    }
+
+    try (Stream<String> emails = usersRepository.streamAllEmails()) {
+      emails.forEach(emailBloomFilter::add);
+    }
+    emailBloomFilter.markWarm();
   }
 }
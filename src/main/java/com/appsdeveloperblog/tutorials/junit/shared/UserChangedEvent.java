@@ -0,0 +1,18 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+/**
+ * Published whenever a user is created or modified, so anything derived from that user (caches,
+ * read models) can be invalidated.
+ */
+public class UserChangedEvent {
+
+  private final String userId;
+
+  public UserChangedEvent(String userId) {
+    this.userId = userId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+}
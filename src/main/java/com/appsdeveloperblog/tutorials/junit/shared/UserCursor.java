@@ -0,0 +1,39 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for paging through users. The cursor wraps the id of the last user
+ * returned, so the next page can seek past it instead of counting an OFFSET.
+ */
+public final class UserCursor {
+
+  private UserCursor() {
+  }
+
+  public static String encode(long lastId) {
+    byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastId).array();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  /**
+   * Returns the id encoded in the cursor, or 0 for an empty cursor (start from the first user).
+   */
+  public static long decode(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return 0L;
+    }
+
+    byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+    if (bytes.length != Long.BYTES) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    long lastId = ByteBuffer.wrap(bytes).getLong();
+    if (lastId < 0) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    return lastId;
+  }
+}
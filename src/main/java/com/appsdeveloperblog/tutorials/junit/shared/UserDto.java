@@ -1,5 +1,7 @@
 package com.appsdeveloperblog.tutorials.junit.shared;
 
+import java.time.Instant;
+
 public class UserDto {
 
   private long id;
@@ -9,6 +11,8 @@ public class UserDto {
   private String email;
   private String password;
   private String encryptedPassword;
+  private long version;
+  private Instant lastModified;
 
   public long getId() {
     return id;
@@ -66,4 +70,20 @@ public class UserDto {
     this.encryptedPassword = encryptedPassword;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public Instant getLastModified() {
+    return lastModified;
+  }
+
+  public void setLastModified(Instant lastModified) {
+    this.lastModified = lastModified;
+  }
+
 }
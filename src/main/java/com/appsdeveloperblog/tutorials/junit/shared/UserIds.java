@@ -0,0 +1,77 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Public user ids: version 7 UUIDs, a 48-bit Unix millisecond timestamp followed by 74 random
+ * bits. Ids created later sort later, so inserts append to the right edge of the unique index
+ * instead of splitting random pages. The random bits come from {@link ThreadLocalRandom}, which
+ * never blocks or contends the way the shared {@code SecureRandom} behind
+ * {@link UUID#randomUUID()} does; the ids are unique, not secret.
+ *
+ * <p>The API speaks the canonical 36-character form, the database stores the 16 bytes.
+ */
+public final class UserIds {
+
+  private static final int CANONICAL_LENGTH = 36;
+
+  private UserIds() {
+  }
+
+  public static String newUserId() {
+    return next().toString();
+  }
+
+  static UUID next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long mostSigBits = System.currentTimeMillis() << 16
+        | 0x7000L
+        | random.nextLong() & 0x0FFFL;
+    long leastSigBits = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  /**
+   * Whether {@code userId} is a UUID in canonical form, in either case. Older ids are random
+   * (version 4) UUIDs and remain valid.
+   */
+  public static boolean isValid(String userId) {
+    if (userId == null || userId.length() != CANONICAL_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < CANONICAL_LENGTH; i++) {
+      char c = userId.charAt(i);
+      boolean valid = i == 8 || i == 13 || i == 18 || i == 23
+          ? c == '-'
+          : Character.digit(c, 16) >= 0;
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @throws IllegalArgumentException when {@code userId} is not {@link #isValid valid}
+   */
+  public static byte[] toBytes(String userId) {
+    if (!isValid(userId)) {
+      throw new IllegalArgumentException("Not a user id: " + userId);
+    }
+    UUID uuid = UUID.fromString(userId);
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+
+  public static String fromBytes(byte[] bytes) {
+    if (bytes.length != 16) {
+      throw new IllegalArgumentException("A user id has 16 bytes, not " + bytes.length);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong()).toString();
+  }
+}
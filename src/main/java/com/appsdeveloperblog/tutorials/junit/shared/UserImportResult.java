@@ -0,0 +1,66 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+public class UserImportResult {
+
+  public enum Status {
+    CREATED, DUPLICATE, INVALID, FAILED
+  }
+
+  private int index;
+  private Status status;
+  private String email;
+  private String userId;
+  private String message;
+
+  public UserImportResult() {
+  }
+
+  public UserImportResult(int index, Status status, String email, String userId,
+      String message) {
+    this.index = index;
+    this.status = status;
+    this.email = email;
+    this.userId = userId;
+    this.message = message;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public void setEmail(String email) {
+    this.email = email;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
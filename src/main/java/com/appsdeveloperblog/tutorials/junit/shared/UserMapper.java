@@ -0,0 +1,107 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UserSummary;
+import com.appsdeveloperblog.tutorials.junit.ui.request.UserDetailsRequestModel;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plain field-by-field mappings between the user types. Produces the same results as the
+ * {@code ModelMapper} setup it replaced, including its implicit matches, without reflection or
+ * intermediate allocations; {@code UserMapperTest} keeps the two in step.
+ */
+@Component
+public class UserMapper {
+
+  /**
+   * Like the {@code ModelMapper} setup, the repeated password ends up in {@code encryptedPassword}.
+   */
+  public UserDto toUserDto(UserDetailsRequestModel userDetails) {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName(userDetails.getFirstName());
+    userDto.setLastName(userDetails.getLastName());
+    userDto.setEmail(userDetails.getEmail());
+    userDto.setPassword(userDetails.getPassword());
+    userDto.setEncryptedPassword(userDetails.getRepeatPassword());
+    return userDto;
+  }
+
+  public UserEntity toUserEntity(UserDto userDto) {
+    UserEntity userEntity = new UserEntity();
+    userEntity.setId(userDto.getId());
+    userEntity.setUserId(userDto.getUserId());
+    userEntity.setFirstName(userDto.getFirstName());
+    userEntity.setLastName(userDto.getLastName());
+    userEntity.setEmail(userDto.getEmail());
+    userEntity.setEncryptedPassword(userDto.getEncryptedPassword());
+    return userEntity;
+  }
+
+  /**
+   * ModelMapper matches {@code encryptedPassword} to {@code password} by name token, so both
+   * carry the hash.
+   */
+  public UserDto toUserDto(UserEntity userEntity) {
+    UserDto userDto = new UserDto();
+    userDto.setId(userEntity.getId());
+    userDto.setUserId(userEntity.getUserId());
+    userDto.setFirstName(userEntity.getFirstName());
+    userDto.setLastName(userEntity.getLastName());
+    userDto.setEmail(userEntity.getEmail());
+    userDto.setPassword(userEntity.getEncryptedPassword());
+    userDto.setEncryptedPassword(userEntity.getEncryptedPassword());
+    userDto.setVersion(userEntity.getVersion());
+    userDto.setLastModified(userEntity.getLastModified());
+    return userDto;
+  }
+
+  /**
+   * Like {@link #toUserDto(UserEntity)}, but without the password hash: for entities loaded to be
+   * shown or cached, never to be authenticated against.
+   */
+  public UserDto toProfileDto(UserEntity userEntity) {
+    UserDto userDto = new UserDto();
+    userDto.setId(userEntity.getId());
+    userDto.setUserId(userEntity.getUserId());
+    userDto.setFirstName(userEntity.getFirstName());
+    userDto.setLastName(userEntity.getLastName());
+    userDto.setEmail(userEntity.getEmail());
+    userDto.setVersion(userEntity.getVersion());
+    userDto.setLastModified(userEntity.getLastModified());
+    return userDto;
+  }
+
+  public UserDto toUserDto(UserSummary user) {
+    UserDto userDto = new UserDto();
+    userDto.setId(user.getId());
+    userDto.setUserId(user.getUserId());
+    userDto.setFirstName(user.getFirstName());
+    userDto.setLastName(user.getLastName());
+    userDto.setEmail(user.getEmail());
+    userDto.setVersion(user.getVersion());
+    userDto.setLastModified(user.getLastModified());
+    return userDto;
+  }
+
+  public UserRest toUserRest(UserDto userDto) {
+    UserRest userRest = new UserRest();
+    userRest.setUserId(userDto.getUserId());
+    userRest.setFirstName(userDto.getFirstName());
+    userRest.setLastName(userDto.getLastName());
+    userRest.setEmail(userDto.getEmail());
+    userRest.setPassword(userDto.getEncryptedPassword());
+    userRest.setRepeatPassword(userDto.getEncryptedPassword());
+    return userRest;
+  }
+
+  public List<UserRest> toUserRest(List<UserDto> userDtos) {
+    List<UserRest> userRests = new ArrayList<>(userDtos.size());
+    for (UserDto userDto : userDtos) {
+      userRests.add(toUserRest(userDto));
+    }
+    return userRests;
+  }
+}
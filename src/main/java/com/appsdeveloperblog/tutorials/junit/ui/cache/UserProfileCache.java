@@ -0,0 +1,57 @@
+package com.appsdeveloperblog.tutorials.junit.ui.cache;
+
+import com.appsdeveloperblog.tutorials.junit.shared.UserChangedEvent;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded cache of user profiles keyed by public user id. Entries keep the version they were
+ * loaded at, for the ETag, and are evicted after a TTL or as soon as a {@link UserChangedEvent}
+ * for the user is committed.
+ */
+@Component
+public class UserProfileCache implements MeterBinder {
+
+  private final Cache<String, UserDto> cache;
+
+  public UserProfileCache(@Value("${users.cache.profiles.maximum-size:10000}") long maximumSize,
+      @Value("${users.cache.profiles.ttl:5m}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  public UserDto get(String userId, Function<String, UserDto> loader) {
+    return cache.get(userId, loader);
+  }
+
+  public void invalidate(String userId) {
+    cache.invalidate(userId);
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    invalidate(event.getUserId());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "userProfiles");
+  }
+}
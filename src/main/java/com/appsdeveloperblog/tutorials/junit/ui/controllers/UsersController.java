@@ -1,17 +1,54 @@
 package com.appsdeveloperblog.tutorials.junit.ui.controllers;
 
+import com.appsdeveloperblog.tutorials.junit.io.UserVersion;
+import com.appsdeveloperblog.tutorials.junit.security.PasswordHashingExecutor;
 import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserCursor;
 import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.shared.UserImportResult;
+import com.appsdeveloperblog.tutorials.junit.shared.UserImportResult.Status;
+import com.appsdeveloperblog.tutorials.junit.shared.UserMapper;
+import com.appsdeveloperblog.tutorials.junit.ui.cache.UserProfileCache;
+import com.appsdeveloperblog.tutorials.junit.ui.export.UserExportWriter;
 import com.appsdeveloperblog.tutorials.junit.ui.request.UserDetailsRequestModel;
 import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserSliceRest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
-import java.lang.reflect.Type;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,6 +56,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @Validated
 @RestController
@@ -26,42 +64,289 @@ import org.springframework.web.bind.annotation.RestController;
 
 public class UsersController {
 
+  private static final Logger logger = LoggerFactory.getLogger(UsersController.class);
+
+  private static final int IMPORT_CHUNK_SIZE = 500;
+
   private final UsersService usersService;
-  private final ModelMapper modelMapper;
+  private final UserMapper userMapper;
+  private final UserProfileCache userProfileCache;
+  private final PasswordHashingExecutor passwordHashingExecutor;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
 
+  /**
+   * {@code objectMapper} and {@code validator} are Spring's, so the streamed batch import reads
+   * and validates users exactly like {@code @RequestBody @Valid} does.
+   */
   @Autowired
-  public UsersController(UsersService usersService, ModelMapper modelMapper) {
+  public UsersController(UsersService usersService, UserMapper userMapper,
+      UserProfileCache userProfileCache, PasswordHashingExecutor passwordHashingExecutor,
+      ObjectMapper objectMapper, Validator validator) {
     this.usersService = usersService;
-    this.modelMapper = modelMapper;
+    this.userMapper = userMapper;
+    this.userProfileCache = userProfileCache;
+    this.passwordHashingExecutor = passwordHashingExecutor;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
   }
 
+  /**
+   * Sign-up is dominated by BCrypt, so it runs on the password hashing pool and the request thread
+   * is released until the user is stored. A sign-up still queued after
+   * {@link PasswordHashingExecutor#timeout()} is answered with 503 and dropped from the queue, so
+   * it never writes the user; one already hashing by then runs to completion.
+   */
   @PostMapping
-  public UserRest createUser(@RequestBody @Valid UserDetailsRequestModel userDetails)
-      throws Exception {
-    UserDto userDto = modelMapper.map(userDetails, UserDto.class);
+  public CompletableFuture<UserRest> createUser(
+      @RequestBody @Valid UserDetailsRequestModel userDetails) {
+    UserDto userDto = userMapper.toUserDto(userDetails);
+
+    return passwordHashingExecutor.submit(
+            () -> userMapper.toUserRest(usersService.createUser(userDto)))
+        .orTimeout(passwordHashingExecutor.timeout().toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+  public ResponseEntity<Void> handlePasswordHashingUnavailable() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(PasswordHashingExecutor.RETRY_AFTER_SECONDS))
+        .build();
+  }
+
+  /**
+   * Imports a JSON array of users. The array is read and answered incrementally, chunk by
+   * chunk, with one result per input element in input order. Elements that are not valid users
+   * are reported as {@code INVALID}. Should the body stop being valid JSON half-way, the users
+   * read so far are still imported and a last {@code INVALID} result for the broken element
+   * closes the array.
+   */
+  @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public void createUsers(InputStream requestBody, HttpServletResponse response)
+      throws IOException {
+    try (JsonParser parser = objectMapper.getFactory().createParser(requestBody)) {
+      try {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+          response.setStatus(HttpStatus.BAD_REQUEST.value());
+          return;
+        }
+      } catch (JsonParseException e) {
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        return;
+      }
+
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.setCharacterEncoding("UTF-8");
+      try (JsonGenerator generator = objectMapper.getFactory()
+          .createGenerator(response.getOutputStream())) {
+        generator.writeStartArray();
 
-    UserDto createdUser = usersService.createUser(userDto);
+        List<UserDto> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<UserImportResult> rejected = new ArrayList<>();
+        int index = 0;
+        JsonParseException malformed = null;
+        try {
+          for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY;
+              token = parser.nextToken()) {
+            if (token == null) {
+              throw new JsonParseException(parser, "Unexpected end of the user array");
+            }
+            UserImportResult invalid = readUser(parser, token, index, chunk);
+            if (invalid == null) {
+              chunkIndexes.add(index);
+            } else {
+              rejected.add(invalid);
+            }
+            index++;
 
-    return modelMapper.map(createdUser, UserRest.class);
+            if (chunk.size() + rejected.size() == IMPORT_CHUNK_SIZE) {
+              importChunk(chunk, chunkIndexes, rejected, generator);
+            }
+          }
+        } catch (JsonParseException e) {
+          malformed = e;
+        }
+        importChunk(chunk, chunkIndexes, rejected, generator);
+        if (malformed != null) {
+          generator.writeObject(new UserImportResult(index, Status.INVALID, null, null,
+              "Malformed JSON: " + malformed.getOriginalMessage()));
+        }
+
+        generator.writeEndArray();
+      }
+    }
   }
 
+  // adds the element to the chunk when it is a valid user, otherwise returns why it is not.
+  // Objects are read as a tree first so a field of the wrong type only rejects its own element
+  private UserImportResult readUser(JsonParser parser, JsonToken token, int index,
+      List<UserDto> chunk) throws IOException {
+    if (token != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return new UserImportResult(index, Status.INVALID, null, null, "Expected a user object");
+    }
+
+    JsonNode element = parser.readValueAsTree();
+    UserDetailsRequestModel userDetails;
+    try {
+      userDetails = objectMapper.treeToValue(element, UserDetailsRequestModel.class);
+    } catch (JsonProcessingException e) {
+      return new UserImportResult(index, Status.INVALID, element.path("email").asText(null), null,
+          e.getOriginalMessage());
+    }
+
+    Set<ConstraintViolation<UserDetailsRequestModel>> violations =
+        validator.validate(userDetails);
+    if (!violations.isEmpty()) {
+      ConstraintViolation<UserDetailsRequestModel> violation = violations.iterator().next();
+      return new UserImportResult(index, Status.INVALID, userDetails.getEmail(), null,
+          violation.getPropertyPath() + " " + violation.getMessage());
+    }
+    chunk.add(userMapper.toUserDto(userDetails));
+    return null;
+  }
+
+  private void importChunk(List<UserDto> chunk, List<Integer> chunkIndexes,
+      List<UserImportResult> rejected, JsonGenerator generator) throws IOException {
+    if (chunk.isEmpty() && rejected.isEmpty()) {
+      return;
+    }
+
+    List<UserImportResult> results = new ArrayList<>(rejected);
+    if (!chunk.isEmpty()) {
+      try {
+        for (UserImportResult result : usersService.createUsers(chunk)) {
+          result.setIndex(chunkIndexes.get(result.getIndex()));
+          results.add(result);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Could not import users {} to {} of the batch", chunkIndexes.get(0),
+            chunkIndexes.get(chunkIndexes.size() - 1), e);
+        for (int i = 0; i < chunk.size(); i++) {
+          results.add(new UserImportResult(chunkIndexes.get(i), Status.FAILED,
+              chunk.get(i).getEmail(), null, "Could not import user"));
+        }
+      }
+    }
+    results.sort(Comparator.comparingInt(UserImportResult::getIndex));
+    for (UserImportResult result : results) {
+      generator.writeObject(result);
+    }
+    generator.flush();
+
+    chunk.clear();
+    chunkIndexes.clear();
+    rejected.clear();
+  }
+
+  /**
+   * The ETag is the row version and {@code Last-Modified} the last profile change. A conditional
+   * request is first checked against a version-only query, so a 304 never loads or renders the
+   * profile.
+   */
   @GetMapping(path = "/{userId}")
-  public ResponseEntity<UserRest> getUser(@PathVariable String userId) {
-    UserDto userDto = usersService.getUserByUserId(userId);
-    UserRest returnValue = modelMapper.map(userDto, UserRest.class);
-    return ResponseEntity.ok(returnValue);
+  public ResponseEntity<UserRest> getUser(@PathVariable String userId, WebRequest webRequest) {
+    if (isConditional(webRequest)) {
+      UserVersion version = usersService.getUserVersion(userId);
+      if (version != null && webRequest.checkNotModified(eTag(version.getVersion()),
+          toEpochMilli(version.getLastModified()))) {
+        return null;
+      }
+    }
+
+    UserDto user = userProfileCache.get(userId, usersService::getUserByUserId);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag(user.getVersion()));
+    if (user.getLastModified() != null) {
+      response.lastModified(user.getLastModified());
+    }
+    return response.body(userMapper.toUserRest(user));
   }
 
+  /**
+   * The ETag covers the user ids and versions on the page. There is no {@code Last-Modified}: a
+   * page also changes when users move onto it, which no timestamp of its rows reflects.
+   */
   @GetMapping
-  public List<UserRest> getUsers(@RequestParam(value = "page", defaultValue = "0") int page,
-      @RequestParam(value = "limit", defaultValue = "2") int limit) {
+  public ResponseEntity<List<UserRest>> getUsers(
+      @RequestParam(value = "page", defaultValue = "0") int page,
+      @RequestParam(value = "limit", defaultValue = "2") int limit, WebRequest webRequest) {
+    if (isConditional(webRequest)) {
+      List<UserVersion> versions = usersService.getUserVersions(page, limit);
+      if (webRequest.checkNotModified(
+          eTag(versions, UserVersion::getUserId, UserVersion::getVersion))) {
+        return null;
+      }
+    }
+
     List<UserDto> users = usersService.getUsers(page, limit);
-    Type listType = new TypeToken<List<UserRest>>() {
-    }.getType();
-    return modelMapper.map(users, listType);
+    return ResponseEntity.ok()
+        .eTag(eTag(users, UserDto::getUserId, UserDto::getVersion))
+        .body(userMapper.toUserRest(users));
   }
 
-}
+  private static boolean isConditional(WebRequest webRequest) {
+    return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+        || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+  }
+
+  private static String eTag(long version) {
+    return "\"" + version + "\"";
+  }
 
+  private static <T> String eTag(List<T> page, Function<T, String> userId,
+      ToLongFunction<T> version) {
+    StringBuilder state = new StringBuilder();
+    for (T user : page) {
+      state.append(userId.apply(user)).append(':').append(version.applyAsLong(user)).append(',');
+    }
+    return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8))
+        + "\"";
+  }
 
+  private static long toEpochMilli(Instant instant) {
+    return instant == null ? -1 : instant.toEpochMilli();
+  }
+
+  @GetMapping(params = "after")
+  public ResponseEntity<UserSliceRest> getUsersAfter(@RequestParam(value = "after") String after,
+      @RequestParam(value = "limit", defaultValue = "2") int limit) {
+    long lastId;
+    try {
+      lastId = UserCursor.decode(after);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
 
+    Slice<UserDto> users = usersService.getUsersAfter(lastId, limit);
+
+    UserSliceRest returnValue = new UserSliceRest();
+    returnValue.setUsers(users.map(userMapper::toUserRest).getContent());
+    if (users.hasNext()) {
+      List<UserDto> content = users.getContent();
+      returnValue.setNextCursor(UserCursor.encode(content.get(content.size() - 1).getId()));
+    }
+    return ResponseEntity.ok(returnValue);
+  }
+
+  @GetMapping(path = "/export")
+  public void exportUsers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+      HttpServletResponse response) throws IOException {
+    if (!UserExportWriter.isSupported(format)) {
+      response.setStatus(HttpStatus.BAD_REQUEST.value());
+      return;
+    }
+
+    response.setContentType(UserExportWriter.contentType(format));
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + format);
+
+    try (UserExportWriter writer = UserExportWriter.forFormat(format,
+        response.getOutputStream())) {
+      usersService.exportUsers(writer);
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+package com.appsdeveloperblog.tutorials.junit.ui.export;
+
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported users straight to an output stream, one record at a time, so the export never
+ * holds more than a single user in memory. Passwords are never written.
+ */
+public abstract class UserExportWriter implements Consumer<UserDto>, Closeable {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  public static UserExportWriter forFormat(String format, OutputStream out) throws IOException {
+    switch (format) {
+      case "ndjson":
+        return new NdjsonUserExportWriter(out);
+      case "csv":
+        return new CsvUserExportWriter(out);
+      default:
+        throw new IllegalArgumentException("Unsupported export format: " + format);
+    }
+  }
+
+  public static boolean isSupported(String format) {
+    return "ndjson".equals(format) || "csv".equals(format);
+  }
+
+  public static String contentType(String format) {
+    return "csv".equals(format) ? "text/csv" : "application/x-ndjson";
+  }
+
+  @Override
+  public void accept(UserDto user) {
+    try {
+      write(user);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  protected abstract void write(UserDto user) throws IOException;
+
+  private static class NdjsonUserExportWriter extends UserExportWriter {
+
+    private final JsonGenerator generator;
+
+    NdjsonUserExportWriter(OutputStream out) throws IOException {
+      generator = JSON_FACTORY.createGenerator(out);
+      generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    protected void write(UserDto user) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("userId", user.getUserId());
+      generator.writeStringField("firstName", user.getFirstName());
+      generator.writeStringField("lastName", user.getLastName());
+      generator.writeStringField("email", user.getEmail());
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      generator.close();
+    }
+  }
+
+  private static class CsvUserExportWriter extends UserExportWriter {
+
+    private final Writer writer;
+
+    CsvUserExportWriter(OutputStream out) throws IOException {
+      writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      writer.write("userId,firstName,lastName,email\n");
+    }
+
+    @Override
+    protected void write(UserDto user) throws IOException {
+      writeField(user.getUserId());
+      writer.write(',');
+      writeField(user.getFirstName());
+      writer.write(',');
+      writeField(user.getLastName());
+      writer.write(',');
+      writeField(user.getEmail());
+      writer.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+      if (value == null) {
+        return;
+      }
+
+      boolean quote = false;
+      for (int i = 0; i < value.length() && !quote; i++) {
+        char c = value.charAt(i);
+        quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+
+      if (!quote) {
+        writer.write(value);
+        return;
+      }
+
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+}
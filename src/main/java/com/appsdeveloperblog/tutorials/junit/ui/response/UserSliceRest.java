@@ -0,0 +1,25 @@
+package com.appsdeveloperblog.tutorials.junit.ui.response;
+
+import java.util.List;
+
+public class UserSliceRest {
+
+  private List<UserRest> users;
+  private String nextCursor;
+
+  public List<UserRest> getUsers() {
+    return users;
+  }
+
+  public void setUsers(List<UserRest> users) {
+    this.users = users;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
@@ -0,0 +1,28 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import java.util.concurrent.Executors;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves each request on its own virtual thread instead of Tomcat's platform-thread pool, so a
+ * request blocked on JDBC no longer holds an OS thread. Only compiled by the {@code java21} Maven
+ * profile and switched on with {@code spring.threads.virtual.enabled=true}, the property Spring
+ * Boot 3.2 uses for the same purpose.
+ *
+ * <p>BCrypt stays on the bounded {@code PasswordHashingExecutor}: it is CPU-bound, and virtual
+ * threads would only remove the limit on how many hashes run at once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutorCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(
+        Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
@@ -1,15 +1,21 @@
 package com.appsdeveloperblog.tutorials.junit.io;
 
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
 import jakarta.persistence.PersistenceException;
 import java.util.UUID;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 @DataJpaTest
+// the component scan also picks up the controllers, which need Spring's ObjectMapper and Validator
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
 public class UserEntityIntegrationTest {
 
   @Autowired
@@ -58,8 +64,9 @@ public class UserEntityIntegrationTest {
     // Exception means the test has passed
   void testUserEntity_WhenUserIsNotUnique_ShouldThrowException() {
     // Arrange
+    String userId = UserIds.newUserId();
     UserEntity user1 = new UserEntity();
-    user1.setUserId("12345");
+    user1.setUserId(userId);
     user1.setEmail("eden@gmail.com");
     user1.setFirstName("Eden");
     user1.setLastName("Bercier");
@@ -69,7 +76,7 @@ public class UserEntityIntegrationTest {
     testEntityManager.clear();
 
     UserEntity user2 = new UserEntity();
-    user2.setUserId("12345");
+    user2.setUserId(userId);
     user2.setEmail("eden@gmail.com");
     user2.setFirstName("Eden");
     user2.setLastName("Bercier");
@@ -0,0 +1,127 @@
+package com.appsdeveloperblog.tutorials.junit.io;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Explains the statements Hibernate actually sends for the repository methods, captured at the
+ * proxied {@code dataSource}, rather than hand-written equivalents.
+ */
+@DataJpaTest
+// the component scan also picks up the controllers, which need Spring's ObjectMapper and Validator
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+public class UsersRepositoryQueryPlanTest {
+
+  @Autowired
+  TestEntityManager testEntityManager;
+  @Autowired
+  UsersRepository usersRepository;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+  @Autowired
+  CapturedStatements capturedStatements;
+
+  @BeforeEach
+  void setup() {
+    UserEntity userEntity = new UserEntity();
+    userEntity.setUserId(UUID.randomUUID().toString());
+    userEntity.setFirstName("Eden");
+    userEntity.setLastName("Bercier");
+    userEntity.setEmail("Eden@Gmail.com");
+    userEntity.setEncryptedPassword("12345678");
+    testEntityManager.persistAndFlush(userEntity);
+    testEntityManager.clear();
+  }
+
+  @Test
+  void testEmailDomain_whenUserIsPersisted_isDerivedFromEmail() {
+    // Act
+    List<UserEntity> users = usersRepository.findByEmailDomain("gmail.com");
+
+    // Assert
+    Assertions.assertEquals(1, users.size());
+    Assertions.assertEquals("gmail.com", users.get(0).getEmailDomain());
+  }
+
+  @Test
+  void testFindByEmailDomain_queryPlan_usesEmailDomainIndex() {
+    // Act
+    capturedStatements.clear();
+    usersRepository.findByEmailDomain("gmail.com");
+    String plan = explain(capturedStatements.single());
+
+    // Assert
+    Assertions.assertTrue(plan.contains("IDX_USERS_EMAIL_DOMAIN"), plan);
+    Assertions.assertFalse(plan.contains("tableScan"), plan);
+  }
+
+  @Test
+  void testFindByEmail_queryPlan_usesEmailIndex() {
+    // Act
+    capturedStatements.clear();
+    usersRepository.findByEmail("Eden@Gmail.com");
+    String plan = explain(capturedStatements.single());
+
+    // Assert
+    Assertions.assertTrue(plan.contains("UK_USERS_EMAIL"), plan);
+    Assertions.assertFalse(plan.contains("tableScan"), plan);
+  }
+
+  private String explain(QueryInfo query) {
+    Object[] parameters = query.getParametersList().get(0).stream()
+        .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+        .map(operation -> operation.getArgs()[1])
+        .toArray();
+    return jdbcTemplate.queryForObject("explain " + query.getQuery(), String.class, parameters);
+  }
+
+  @TestConfiguration
+  static class QueryCaptureConfig {
+
+    @Bean
+    CapturedStatements capturedStatements() {
+      return new CapturedStatements();
+    }
+  }
+
+  static class CapturedStatements implements QueryExecutionListener {
+
+    private final List<QueryInfo> statements = new ArrayList<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+      statements.addAll(queryInfoList);
+    }
+
+    synchronized QueryInfo single() {
+      Assertions.assertEquals(1, statements.size(), () -> "Captured " + statements.stream()
+          .map(QueryInfo::getQuery).toList());
+      return statements.get(0);
+    }
+
+    synchronized void clear() {
+      statements.clear();
+    }
+  }
+}
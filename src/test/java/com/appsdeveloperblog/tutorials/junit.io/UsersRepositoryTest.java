@@ -3,14 +3,23 @@ package com.appsdeveloperblog.tutorials.junit.io;
 
 import java.util.List;
 import java.util.UUID;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 @DataJpaTest
+// the component scan also picks up the controllers, which need Spring's ObjectMapper and Validator
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
 public class UsersRepositoryTest {
 
   @Autowired
@@ -62,6 +71,19 @@ public class UsersRepositoryTest {
 
   }
 
+  @Test
+  void testFindByEmail_whenEntityIsChanged_isNotDirtyChecked() {
+    testEntityManager.clear();
+    UserEntity storedUser = usersRepository.findByEmail(userEntity.getEmail());
+
+    storedUser.setFirstName("Changed");
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    Assertions.assertEquals("Eden",
+        testEntityManager.find(UserEntity.class, userEntity.getId()).getFirstName());
+  }
+
   @Test
   void testFindUsersWithEmailEndsWith_whenGivenEmailDomain_returnsUsersWithGivenDomain() {
     // Arrange
@@ -83,4 +105,59 @@ public class UsersRepositoryTest {
     Assertions.assertEquals(1, users.size(), "Should be only one user with given email domain");
     Assertions.assertTrue(users.get(0).getEmail().endsWith("@gmail.com"));
   }
-}
\ No newline at end of file
+
+  @Test
+  void testFindUsersWithEmailEndingWith_whenDomainIsNull_rejectsArgument() {
+    Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+        () -> usersRepository.findUsersWithEmailEndingWith(null));
+  }
+
+  @Test
+  void testFindSummariesByIdGreaterThan_whenGivenLastSeenId_returnsNextSliceInIdOrder() {
+    // Act
+    Slice<UserSummary> firstSlice = usersRepository.findSummariesByIdGreaterThanOrderByIdAsc(0L,
+        PageRequest.ofSize(1));
+    Slice<UserSummary> secondSlice = usersRepository.findSummariesByIdGreaterThanOrderByIdAsc(
+        firstSlice.getContent().get(0).getId(), PageRequest.ofSize(1));
+
+    // Assert
+    Assertions.assertEquals(userEntity.getUserId(), firstSlice.getContent().get(0).getUserId());
+    Assertions.assertTrue(firstSlice.hasNext(), "First slice should report a next slice");
+    Assertions.assertEquals(userEntity2.getUserId(), secondSlice.getContent().get(0).getUserId());
+    Assertions.assertFalse(secondSlice.hasNext(), "Last slice should not report a next slice");
+  }
+
+  @Test
+  void testFindSummaryByUserId_whenGivenCorrectUserId_returnsProjectionWithoutPassword() {
+    // Arrange
+    testEntityManager.clear();
+
+    // Act
+    UserSummary storedUser = usersRepository.findSummaryByUserId(userEntity.getUserId());
+
+    // Assert
+    Assertions.assertEquals(userEntity.getEmail(), storedUser.getEmail());
+    Assertions.assertEquals(userEntity.getFirstName(), storedUser.getFirstName());
+    Assertions.assertEquals(userEntity.getId(), storedUser.getId());
+    Assertions.assertEquals(0, testEntityManager.getEntityManager().unwrap(Session.class)
+        .getStatistics().getEntityCount(), "Projections should not load managed entities");
+  }
+
+  @Test
+  void testFindVersionByUserId_whenEntityWasUpdated_returnsIncrementedVersion() {
+    // Arrange
+    long versionBefore = userEntity.getVersion();
+    userEntity.setFirstName("Edith");
+    testEntityManager.persistAndFlush(userEntity);
+    testEntityManager.clear();
+
+    // Act
+    UserVersion storedVersion = usersRepository.findVersionByUserId(userEntity.getUserId());
+
+    // Assert
+    Assertions.assertEquals(versionBefore + 1, storedVersion.getVersion());
+    Assertions.assertNotNull(storedVersion.getLastModified());
+    Assertions.assertEquals(0, testEntityManager.getEntityManager().unwrap(Session.class)
+        .getStatistics().getEntityCount(), "Version lookups should not load managed entities");
+  }
+}
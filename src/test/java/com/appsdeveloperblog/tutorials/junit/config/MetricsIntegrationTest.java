@@ -0,0 +1,79 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import java.util.UUID;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "management.endpoints.web.exposure.include=prometheus",
+    "management.metrics.distribution.percentiles.users=0.99"})
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+  @Autowired
+  private TestRestTemplate testRestTemplate;
+
+  @Autowired
+  private UsersRepository usersRepository;
+
+  @AfterEach
+  void cleanDatabase() {
+    usersRepository.deleteAll();
+  }
+
+  @Test
+  void testPrometheusEndpoint_afterSignUpLoginAndRead_exposesLatencyOfEveryLayer()
+      throws JSONException {
+    String email = "metrics_" + UUID.randomUUID() + "@test.com";
+    JSONObject userDetails = new JSONObject()
+        .put("firstName", "Eden")
+        .put("lastName", "Bercier")
+        .put("email", email)
+        .put("password", "12345678")
+        .put("repeatPassword", "12345678");
+    HttpHeaders jsonHeaders = new HttpHeaders();
+    jsonHeaders.setContentType(MediaType.APPLICATION_JSON);
+    testRestTemplate.postForEntity("/users", new HttpEntity<>(userDetails.toString(), jsonHeaders),
+        String.class);
+    ResponseEntity<String> login = testRestTemplate.postForEntity("/login", new HttpEntity<>(
+        new JSONObject().put("email", email).put("password", "12345678").toString()),
+        String.class);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(new JSONObject(login.getBody()).getString("token"));
+    testRestTemplate.exchange("/users", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+    ResponseEntity<String> scrape = testRestTemplate.getForEntity("/actuator/prometheus",
+        String.class);
+
+    Assertions.assertEquals(HttpStatus.OK, scrape.getStatusCode());
+    String metrics = scrape.getBody();
+    Assertions.assertTrue(metrics.contains("http_server_requests_seconds_count{"));
+    Assertions.assertTrue(metrics.contains("method=\"createUser\""));
+    Assertions.assertTrue(metrics.contains("users_service_seconds{"));
+    Assertions.assertTrue(metrics.contains("quantile=\"0.99\""));
+    Assertions.assertFalse(metrics.contains("users_mapping_seconds"),
+        "Mapping is already inside the users.service timings");
+    Assertions.assertTrue(metrics.contains("spring_data_repository_invocations_seconds_count{"));
+    Assertions.assertTrue(metrics.contains("security_jwt_sign_seconds_count"));
+    Assertions.assertTrue(metrics.contains("security_jwt_verify_seconds_count"));
+    Assertions.assertTrue(metrics.contains("security_password_hashing_seconds_count{"
+        + "operation=\"encode\""));
+    Assertions.assertTrue(metrics.contains("security_password_hashing_seconds_count{"
+        + "operation=\"matches\""));
+    Assertions.assertTrue(metrics.contains("hikaricp_connections_active"));
+  }
+}
@@ -0,0 +1,112 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Nothing replicates between
+ * them unless a test calls {@link #replicate()}, so a replica that is behind is the default.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+    "spring.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+    "spring.datasource.replica.read-your-writes-window=1m"})
+class ReadReplicaRoutingTest {
+
+  @Autowired
+  private UsersService usersService;
+  @Autowired
+  private UsersRepository usersRepository;
+  @Autowired
+  private ApplicationContext applicationContext;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private JdbcTemplate primary;
+  private JdbcTemplate replica;
+
+  @BeforeEach
+  void setup() {
+    primary = new JdbcTemplate(applicationContext.getBean("primaryDataSource", DataSource.class));
+    replica = new JdbcTemplate(applicationContext.getBean("replicaDataSource", DataSource.class));
+    usersRepository.deleteAll();
+    replicate();
+  }
+
+  @Test
+  void testPools_whenReplicaIsConfigured_bindHikariMetricsForBoth() {
+    usersService.getUsers(1, 10);
+
+    for (String pool : List.of("primary", "replica")) {
+      Assertions.assertNotNull(
+          meterRegistry.find("hikaricp.connections.active").tag("pool", pool).gauge(),
+          "No Hikari metrics for the " + pool + " pool");
+    }
+  }
+
+  @Test
+  void testGetUserByUserId_whenReadOnly_readsFromReplica() {
+    UserEntity userEntity = usersRepository.save(userEntity("replicated@test.com"));
+    replicate();
+    replica.update("update users set first_name = 'Replica' where email = ?",
+        userEntity.getEmail());
+
+    UserDto user = usersService.getUserByUserId(userEntity.getUserId());
+    List<UserDto> users = usersService.getUsers(1, 10);
+
+    Assertions.assertEquals("Replica", user.getFirstName());
+    Assertions.assertEquals(1, users.size());
+    Assertions.assertEquals("Replica", users.get(0).getFirstName());
+  }
+
+  @Test
+  void testGetUserByUserId_whenUserWasJustCreated_readsYourWriteFromPrimary() {
+    UserDto user = new UserDto();
+    user.setFirstName("Eden");
+    user.setLastName("Bercier");
+    user.setEmail("new_" + UUID.randomUUID() + "@test.com");
+    user.setPassword("12345678");
+
+    UserDto createdUser = usersService.createUser(user);
+
+    Assertions.assertEquals(0, replica.queryForObject("select count(*) from users", Long.class));
+    Assertions.assertEquals(1, primary.queryForObject("select count(*) from users", Long.class));
+    Assertions.assertEquals(user.getEmail(),
+        usersService.getUserByUserId(createdUser.getUserId()).getEmail());
+    Assertions.assertEquals(user.getEmail(), usersService.getUser(user.getEmail()).getEmail());
+    Assertions.assertEquals(user.getEmail(),
+        usersService.loadUserByUsername(user.getEmail()).getUsername());
+    Assertions.assertTrue(usersService.getUsers(1, 10).isEmpty(),
+        "Pages are not tied to a key and come from the replica");
+  }
+
+  // copies schema and rows of the primary over whatever the replica had
+  private void replicate() {
+    List<String> script = primary.queryForList("script", String.class);
+    replica.execute("drop all objects");
+    script.forEach(replica::execute);
+  }
+
+  private static UserEntity userEntity(String email) {
+    UserEntity userEntity = new UserEntity();
+    userEntity.setUserId(UUID.randomUUID().toString());
+    userEntity.setFirstName("Eden");
+    userEntity.setLastName("Bercier");
+    userEntity.setEmail(email);
+    userEntity.setEncryptedPassword("{bcrypt}hash");
+    return userEntity;
+  }
+}
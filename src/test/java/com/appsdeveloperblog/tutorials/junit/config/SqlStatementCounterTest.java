@@ -0,0 +1,56 @@
+package com.appsdeveloperblog.tutorials.junit.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SqlStatementCounterTest {
+
+  @Test
+  void testAfterQuery_whenStatementsRun_countsThemByType() {
+    SqlStatementCounter counter = new SqlStatementCounter(Duration.ofMillis(500));
+
+    counter.afterQuery(execution(3), List.of(
+        new QueryInfo("select u.id from users u where u.email=?")));
+    counter.afterQuery(execution(2), List.of(
+        new QueryInfo("/* insert */ INSERT into users (id) values (?)"),
+        new QueryInfo("update users set version=? where id=?")));
+    counter.afterQuery(execution(1), List.of(new QueryInfo("delete from users where id=?")));
+
+    Assertions.assertEquals(1, counter.count(QueryType.SELECT));
+    Assertions.assertEquals(1, counter.count(QueryType.INSERT));
+    Assertions.assertEquals(1, counter.count(QueryType.UPDATE));
+    Assertions.assertEquals(1, counter.count(QueryType.DELETE));
+    Assertions.assertEquals(4, counter.total());
+    Assertions.assertEquals(0, counter.slowCount());
+
+    counter.reset();
+    Assertions.assertEquals(0, counter.total());
+  }
+
+  @Test
+  void testAfterQuery_whenStatementExceedsThreshold_countsSlowQuery() {
+    SqlStatementCounter counter = new SqlStatementCounter(Duration.ofMillis(100));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    counter.bindTo(registry);
+
+    counter.afterQuery(execution(99), List.of(new QueryInfo("select 1")));
+    counter.afterQuery(execution(250), List.of(new QueryInfo("select 2")));
+
+    Assertions.assertEquals(1, counter.slowCount());
+    Assertions.assertEquals(1, registry.get("jdbc.statements.slow").functionCounter().count());
+    Assertions.assertEquals(2,
+        registry.get("jdbc.statements").tag("type", "select").functionCounter().count());
+  }
+
+  private static ExecutionInfo execution(long elapsedMillis) {
+    ExecutionInfo executionInfo = new ExecutionInfo();
+    executionInfo.setElapsedTime(elapsedMillis);
+    return executionInfo;
+  }
+}
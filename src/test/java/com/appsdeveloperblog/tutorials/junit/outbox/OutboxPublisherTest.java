@@ -0,0 +1,154 @@
+package com.appsdeveloperblog.tutorials.junit.outbox;
+
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventEntity;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxEventsRepository;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxOffsetEntity;
+import com.appsdeveloperblog.tutorials.junit.io.OutboxOffsetsRepository;
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class OutboxPublisherTest {
+
+  @Autowired
+  private UsersService usersService;
+  @Autowired
+  private OutboxEventsRepository outboxEventsRepository;
+  @Autowired
+  private OutboxOffsetsRepository outboxOffsetsRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void cleanOutbox() {
+    outboxEventsRepository.deleteAll();
+    outboxOffsetsRepository.deleteAll();
+  }
+
+  @Test
+  void testDrain_whenUsersWereCreated_deliversUserCreatedEventsInBatches() {
+    List<String> userIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      userIds.add(usersService.createUser(user()).getUserId());
+    }
+    InMemoryOutboxSink sink = new InMemoryOutboxSink(100);
+    OutboxPublisher publisher = publisher(sink);
+
+    int delivered = publisher.drain();
+
+    Assertions.assertEquals(5, delivered);
+    Assertions.assertEquals(userIds,
+        sink.events().stream().map(OutboxEventEntity::getAggregateId).toList());
+    Assertions.assertTrue(sink.events().stream()
+        .allMatch(event -> OutboxEvents.USER_CREATED.equals(event.getEventType())));
+    Assertions.assertFalse(sink.events().get(0).getPayload().contains("assword"));
+    Assertions.assertEquals(0, outboxEventsRepository.count());
+    OutboxOffsetEntity offset = outboxOffsetsRepository.findById("memory").orElseThrow();
+    Assertions.assertEquals(5, offset.getDeliveredCount());
+    Assertions.assertEquals(sink.events().get(4).getId(), offset.getLastEventId());
+    Assertions.assertEquals(0, publisher.drain());
+    Assertions.assertEquals(0, publisher.lagSeconds());
+  }
+
+  @Test
+  void testDrain_whenSinkFails_keepsEventsAndRedeliversThem() {
+    usersService.createUser(user());
+    List<OutboxEventEntity> received = new ArrayList<>();
+    boolean[] failing = {true};
+    OutboxPublisher publisher = publisher(new OutboxSink() {
+      @Override
+      public String name() {
+        return "flaky";
+      }
+
+      @Override
+      public void publish(List<OutboxEventEntity> events) throws IOException {
+        if (failing[0]) {
+          throw new IOException("downstream unavailable");
+        }
+        received.addAll(events);
+      }
+    });
+
+    Assertions.assertEquals(0, publisher.drain());
+    Assertions.assertEquals(1, publisher.failureCount());
+    Assertions.assertEquals(1, outboxEventsRepository.count());
+    Assertions.assertTrue(publisher.lagSeconds() > 0);
+    Assertions.assertEquals(0,
+        outboxOffsetsRepository.findById("flaky").orElseThrow().getDeliveredCount());
+
+    failing[0] = false;
+    Assertions.assertEquals(1, publisher.drain());
+    Assertions.assertEquals(1, received.size());
+    Assertions.assertEquals(0, outboxEventsRepository.count());
+  }
+
+  @Test
+  void testDrain_whenEventsArriveDuringDelivery_reportsTheirLag() {
+    usersService.createUser(user());
+    TransactionTemplate otherInstance = new TransactionTemplate(
+        transactionTemplate.getTransactionManager());
+    otherInstance.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    List<OutboxEventEntity> received = new ArrayList<>();
+    OutboxPublisher publisher = publisher(new OutboxSink() {
+      @Override
+      public String name() {
+        return "memory";
+      }
+
+      @Override
+      public void publish(List<OutboxEventEntity> events) {
+        if (received.isEmpty()) {
+          otherInstance.executeWithoutResult(status -> outboxEventsRepository.save(
+              new OutboxEventEntity(OutboxEvents.USER_CREATED, "late", "{}")));
+        }
+        received.addAll(events);
+      }
+    });
+
+    Assertions.assertEquals(1, publisher.drain());
+    Assertions.assertEquals(1, outboxEventsRepository.count());
+    Assertions.assertTrue(publisher.lagSeconds() > 0,
+        "An event committed during delivery is still undelivered");
+
+    Assertions.assertEquals(1, publisher.drain());
+    Assertions.assertEquals(0, publisher.lagSeconds());
+  }
+
+  @Test
+  void testDelivered_whenBatchesCommitOutOfOrder_onlyMovesOffsetForward() {
+    OutboxOffsetEntity offset = new OutboxOffsetEntity("memory");
+
+    offset.delivered(100, 2);
+    offset.delivered(50, 2);
+
+    Assertions.assertEquals(100, offset.getLastEventId());
+    Assertions.assertEquals(4, offset.getDeliveredCount());
+  }
+
+  private OutboxPublisher publisher(OutboxSink sink) {
+    return new OutboxPublisher(outboxEventsRepository, outboxOffsetsRepository, sink,
+        transactionTemplate, false, 2, Duration.ofMillis(200));
+  }
+
+  private static UserDto user() {
+    UserDto user = new UserDto();
+    user.setFirstName("Eden");
+    user.setLastName("Bercier");
+    user.setEmail("outbox_" + UUID.randomUUID() + "@test.com");
+    user.setPassword("12345678");
+    return user;
+  }
+}
@@ -0,0 +1,109 @@
+package com.appsdeveloperblog.tutorials.junit.reactive;
+
+import com.appsdeveloperblog.tutorials.junit.security.JwtTokenService;
+import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
+import com.appsdeveloperblog.tutorials.junit.security.UserPrincipal;
+import com.appsdeveloperblog.tutorials.junit.shared.UserIds;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(classes = ReactiveUsersApplication.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"spring.main.web-application-type=reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-users;DB_CLOSE_DELAY=-1"})
+class ReactiveUsersControllerTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Autowired
+  private JwtTokenService jwtTokenService;
+
+  private String authorizationHeader;
+  private List<String> userIds;
+
+  @BeforeEach
+  void setup() {
+    // the schema is owned by the JPA application, which is not running here
+    databaseClient.sql("create table if not exists users (id bigint primary key, "
+        + "user_id binary(16) not null unique, first_name varchar(50) not null, "
+        + "last_name varchar(50) not null, email varchar(120) not null, "
+        + "email_domain varchar(120), encrypted_password varchar(255) not null, "
+        + "version bigint not null, last_modified timestamp(6) with time zone)")
+        .then().block();
+    databaseClient.sql("delete from users").then().block();
+    userIds = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      userIds.add(UserIds.newUserId());
+      databaseClient.sql("insert into users values (:id, :userId, 'Eden', 'Bercier', :email, "
+              + "'test.com', '{bcrypt}hash', 0, current_timestamp)")
+          .bind("id", i)
+          .bind("userId", UserIds.toBytes(userIds.get(i - 1)))
+          .bind("email", "eden" + i + "@test.com")
+          .then().block();
+    }
+
+    authorizationHeader = SecurityConstants.TOKEN_PREFIX + jwtTokenService.createToken(
+        new UserPrincipal(userIds.get(0), "eden1@test.com", "", AuthorityUtils.NO_AUTHORITIES));
+  }
+
+  @Test
+  void testGetUser_whenValidJWTProvided_returnsUser() {
+    webTestClient.get().uri("/users/" + userIds.get(1))
+        .header(SecurityConstants.HEADER_STRING, authorizationHeader)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.userId").isEqualTo(userIds.get(1))
+        .jsonPath("$.email").isEqualTo("eden2@test.com")
+        .jsonPath("$.firstName").isEqualTo("Eden")
+        .jsonPath("$.password").doesNotExist();
+  }
+
+  @Test
+  void testGetUser_whenUserDoesNotExist_returns404() {
+    webTestClient.get().uri("/users/" + UserIds.newUserId())
+        .header(SecurityConstants.HEADER_STRING, authorizationHeader)
+        .exchange()
+        .expectStatus().isNotFound();
+    webTestClient.get().uri("/users/missing")
+        .header(SecurityConstants.HEADER_STRING, authorizationHeader)
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void testGetUsers_whenPageAndLimitProvided_returnsThatPage() {
+    webTestClient.get().uri("/users?page=1&limit=2")
+        .header(SecurityConstants.HEADER_STRING, authorizationHeader)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.length()").isEqualTo(2);
+  }
+
+  @Test
+  void testGetUsers_whenMissingJWT_returns403() {
+    webTestClient.get().uri("/users")
+        .exchange()
+        .expectStatus().isForbidden();
+  }
+
+  @Test
+  void testGetUsers_whenTokenIsTampered_returns403() {
+    webTestClient.get().uri("/users")
+        .header(SecurityConstants.HEADER_STRING, authorizationHeader + "x")
+        .exchange()
+        .expectStatus().isForbidden();
+  }
+}
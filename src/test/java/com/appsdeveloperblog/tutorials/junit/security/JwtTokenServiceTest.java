@@ -0,0 +1,123 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import java.util.Date;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+class JwtTokenServiceTest {
+
+  private static final String ROTATED_SECRET =
+      "c2Vjb25kLXNpZ25pbmcta2V5LWZvci10aGUtdXNlcnMtc2VydmljZS1yb3RhdGlvbi10ZXN0cy0xMjM0NTY3OA==";
+
+  @Test
+  void testGetPrincipal_whenTokenWasCreatedByService_rebuildsPrincipalFromClaims() {
+    JwtTokenService jwtTokenService = new JwtTokenService();
+    UserPrincipal principal = new UserPrincipal("5f0b2c1e", "eden@test.com", "{bcrypt}hash",
+        AuthorityUtils.createAuthorityList("ROLE_USER", "users:read"));
+    String token = jwtTokenService.createToken(principal);
+
+    UserPrincipal parsed = jwtTokenService.getPrincipal(
+        SecurityConstants.TOKEN_PREFIX + " " + token + " ");
+
+    Assertions.assertEquals("eden@test.com", parsed.getUsername());
+    Assertions.assertEquals("5f0b2c1e", parsed.getUserId());
+    Assertions.assertEquals(principal.getAuthorities(), parsed.getAuthorities());
+    Assertions.assertEquals("", parsed.getPassword(), "Tokens must not carry the password hash");
+    Assertions.assertEquals("eden@test.com", jwtTokenService.getPrincipal(
+        SecurityConstants.TOKEN_PREFIX + SecurityConstants.TOKEN_PREFIX + token).getUsername());
+    Assertions.assertEquals(0, jwtTokenService.failureCount());
+  }
+
+  @Test
+  void testGetPrincipal_whenTokenHasNoKeyId_verifiesWithTokenSecret() {
+    String legacyToken = Jwts.builder()
+        .setSubject("eden@test.com")
+        .setExpiration(new Date(System.currentTimeMillis() + 60000))
+        .signWith(SignatureAlgorithm.HS512, SecurityConstants.TOKEN_SECRET)
+        .compact();
+
+    UserPrincipal principal = new JwtTokenService().getPrincipal(
+        SecurityConstants.TOKEN_PREFIX + legacyToken);
+
+    Assertions.assertEquals("eden@test.com", principal.getUsername());
+    Assertions.assertNull(principal.getUserId());
+    Assertions.assertTrue(principal.getAuthorities().isEmpty());
+  }
+
+  @Test
+  void testGetPrincipal_whenKeyWasRotated_acceptsTokensOfBothKeys() {
+    JwtTokenService before = new JwtTokenService();
+    JwtTokenService after = new JwtTokenService("k2", "k2=" + ROTATED_SECRET, 100);
+    String oldToken = before.createToken(principal("old@test.com"));
+    String newToken = after.createToken(principal("new@test.com"));
+
+    Assertions.assertEquals("old@test.com",
+        after.getPrincipal(SecurityConstants.TOKEN_PREFIX + oldToken).getUsername());
+    Assertions.assertEquals("new@test.com",
+        after.getPrincipal(SecurityConstants.TOKEN_PREFIX + newToken).getUsername());
+    Assertions.assertNull(before.getPrincipal(SecurityConstants.TOKEN_PREFIX + newToken),
+        "A key id the service does not know must be rejected");
+    Assertions.assertEquals(1, before.failureCount());
+  }
+
+  @Test
+  void testGetPrincipal_whenTokenIsExpiredOrTampered_returnsNullAndCountsFailure() {
+    JwtTokenService jwtTokenService = new JwtTokenService();
+    String expiredToken = Jwts.builder()
+        .setHeaderParam(JwsHeader.KEY_ID, JwtTokenService.DEFAULT_KEY_ID)
+        .setSubject("eden@test.com")
+        .setExpiration(new Date(System.currentTimeMillis() - 60000))
+        .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SecurityConstants.TOKEN_SECRET)),
+            SignatureAlgorithm.HS512)
+        .compact();
+    String token = jwtTokenService.createToken(principal("eden@test.com"));
+    String tamperedToken = token.substring(0, token.length() - 4) + "AAAA";
+
+    Assertions.assertNull(
+        jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + expiredToken));
+    Assertions.assertNull(
+        jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + tamperedToken));
+    Assertions.assertNull(jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + "abc"));
+    Assertions.assertNull(jwtTokenService.getPrincipal("Basic ZWRlbjpzZWNyZXQ="));
+    Assertions.assertEquals(3, jwtTokenService.failureCount());
+  }
+
+  @Test
+  void testGetPrincipal_whenTokenIsReused_isServedFromCache() {
+    JwtTokenService jwtTokenService = new JwtTokenService();
+    String token = jwtTokenService.createToken(principal("eden@test.com"));
+    String otherToken = jwtTokenService.createToken(principal("other@test.com"));
+
+    jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + token);
+    UserPrincipal principal = jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + token);
+    UserPrincipal otherPrincipal = jwtTokenService.getPrincipal(
+        SecurityConstants.TOKEN_PREFIX + otherToken);
+
+    Assertions.assertEquals("eden@test.com", principal.getUsername());
+    Assertions.assertEquals("other@test.com", otherPrincipal.getUsername());
+    Assertions.assertEquals(1, jwtTokenService.cacheStats().hitCount());
+    Assertions.assertEquals(2, jwtTokenService.cacheStats().missCount());
+  }
+
+  @Test
+  void testGetPrincipal_whenTokenIsTamperedAfterCaching_rejectsTamperedToken() {
+    JwtTokenService jwtTokenService = new JwtTokenService();
+    String token = jwtTokenService.createToken(principal("eden@test.com"));
+    jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + token);
+
+    String tamperedToken = token.substring(0, token.length() - 4) + "AAAA";
+
+    Assertions.assertNull(
+        jwtTokenService.getPrincipal(SecurityConstants.TOKEN_PREFIX + tamperedToken));
+  }
+
+  private static UserPrincipal principal(String email) {
+    return new UserPrincipal("user-" + email, email, "", AuthorityUtils.NO_AUTHORITIES);
+  }
+}
@@ -0,0 +1,101 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PasswordHashingExecutorTest {
+
+  private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void testSubmit_whenQueueIsFull_rejectsImmediately() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> running = executor.submit(() -> {
+      started.countDown();
+      await(release);
+      return "running";
+    });
+    Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+    Assertions.assertThrows(RejectedExecutionException.class,
+        () -> executor.submit(() -> "rejected"));
+    Assertions.assertEquals(1, executor.queueSize());
+    Assertions.assertEquals(1, executor.rejectedCount());
+
+    release.countDown();
+    Assertions.assertEquals("running", running.get(5, TimeUnit.SECONDS));
+    Assertions.assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testSubmit_whenTaskThrows_completesExceptionally() {
+    CompletableFuture<String> future = executor.submit(() -> {
+      throw new IllegalStateException("boom");
+    });
+
+    Exception exception = Assertions.assertThrows(Exception.class,
+        () -> future.get(5, TimeUnit.SECONDS));
+    Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+  }
+
+  @Test
+  void testSubmit_whenTaskIsCancelledWhileQueued_neverRunsIt() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean ran = new AtomicBoolean();
+    CompletableFuture<String> running = executor.submit(() -> {
+      started.countDown();
+      await(release);
+      return "running";
+    });
+    Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> queued = executor.submit(() -> {
+      ran.set(true);
+      return "queued";
+    });
+
+    queued.cancel(false);
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+    // the worker may not have taken the cancelled task off the one-slot queue yet
+    while (executor.queueSize() > 0) {
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals("after", executor.submit(() -> "after").get(5, TimeUnit.SECONDS));
+
+    Assertions.assertFalse(ran.get(), "A cancelled login must not be hashed");
+  }
+
+  @Test
+  void testInvokeAll_whenMoreInputsThanQueueSlots_returnsResultsInInputOrder() {
+    List<Integer> inputs = IntStream.range(0, 20).boxed().toList();
+
+    List<Integer> squares = executor.invokeAll(inputs, input -> input * input);
+
+    Assertions.assertEquals(inputs.stream().map(input -> input * input).toList(), squares);
+    Assertions.assertEquals(0, executor.rejectedCount());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
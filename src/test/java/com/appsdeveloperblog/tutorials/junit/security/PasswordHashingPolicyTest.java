@@ -0,0 +1,38 @@
+package com.appsdeveloperblog.tutorials.junit.security;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordHashingPolicyTest {
+
+  @Test
+  void testCalibrate_whenTargetIsOutOfRange_clampsToConfiguredBounds() {
+    Assertions.assertEquals(8, PasswordHashingPolicy.calibrate(Duration.ofNanos(1), 8, 12));
+    Assertions.assertEquals(12, PasswordHashingPolicy.calibrate(Duration.ofHours(1), 8, 12));
+  }
+
+  @Test
+  void testPasswordEncoder_whenCostIsPinned_recordsAlgorithmAndCostInHash() {
+    PasswordHashingPolicy policy = new PasswordHashingPolicy(5, Duration.ofMillis(250), 10, 14);
+
+    String hash = policy.passwordEncoder().encode("12345678");
+
+    Assertions.assertEquals(5, policy.bcryptCost());
+    Assertions.assertTrue(hash.startsWith("{bcrypt}$2a$05$"), hash);
+  }
+
+  @Test
+  void testUpgradeEncoding_whenHashHasLowerCost_requestsRehash() {
+    PasswordEncoder passwordEncoder =
+        new PasswordHashingPolicy(5, Duration.ofMillis(250), 10, 14).passwordEncoder();
+    String outdatedHash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("12345678");
+    String currentHash = passwordEncoder.encode("12345678");
+
+    Assertions.assertTrue(passwordEncoder.matches("12345678", outdatedHash));
+    Assertions.assertTrue(passwordEncoder.upgradeEncoding(outdatedHash));
+    Assertions.assertFalse(passwordEncoder.upgradeEncoding(currentHash));
+  }
+}
@@ -0,0 +1,52 @@
+package com.appsdeveloperblog.tutorials.junit.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EmailBloomFilterTest {
+
+  @Test
+  void testMightContain_whenFilterIsNotWarm_returnsTrueForUnknownEmail() {
+    EmailBloomFilter filter = new EmailBloomFilter(true, 1000, 0.01);
+
+    Assertions.assertTrue(filter.mightContain("unknown@test.com"),
+        "A cold filter must never answer with a definite negative");
+  }
+
+  @Test
+  void testMightContain_whenEmailWasAdded_returnsTrueIgnoringCase() {
+    EmailBloomFilter filter = new EmailBloomFilter(true, 1000, 0.01);
+    filter.add("Eden@Test.com");
+    filter.markWarm();
+
+    Assertions.assertTrue(filter.mightContain("Eden@Test.com"));
+    Assertions.assertTrue(filter.mightContain("eden@test.com"));
+  }
+
+  @Test
+  void testMightContain_whenFilterIsAtCapacity_keepsFalsePositiveRateNearTarget() {
+    EmailBloomFilter filter = new EmailBloomFilter(true, 10000, 0.01);
+    for (int i = 0; i < 10000; i++) {
+      filter.add("user" + i + "@test.com");
+    }
+    filter.markWarm();
+
+    int falsePositives = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (filter.mightContain("stranger" + i + "@test.com")) {
+        falsePositives++;
+      }
+    }
+
+    Assertions.assertTrue(falsePositives < 200, "Too many false positives: " + falsePositives);
+    Assertions.assertEquals(0.01, filter.falsePositiveProbability(), 0.005);
+  }
+
+  @Test
+  void testMightContain_whenDisabled_alwaysReturnsTrue() {
+    EmailBloomFilter filter = new EmailBloomFilter(false, 1000, 0.01);
+    filter.markWarm();
+
+    Assertions.assertTrue(filter.mightContain("unknown@test.com"));
+  }
+}
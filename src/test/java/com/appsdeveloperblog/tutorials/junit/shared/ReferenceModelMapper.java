@@ -1,18 +1,20 @@
-package com.appsdeveloperblog.tutorials.junit.config;
+package com.appsdeveloperblog.tutorials.junit.shared;
 
-import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
 import com.appsdeveloperblog.tutorials.junit.ui.request.UserDetailsRequestModel;
 import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.PropertyMap;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 
-@Configuration
-public class ModelMapperConfig {
+/**
+ * The {@code ModelMapper} setup {@link UserMapper} replaced. Only tests and benchmarks use it, as
+ * the reference the hand-written mappings are compared against.
+ */
+public final class ReferenceModelMapper {
 
-  @Bean
-  public ModelMapper modelMapper() {
+  private ReferenceModelMapper() {
+  }
+
+  public static ModelMapper create() {
     ModelMapper mapper = new ModelMapper();
 
     mapper.addMappings(new PropertyMap<UserDetailsRequestModel, UserDto>() {
@@ -26,11 +28,10 @@ public class ModelMapperConfig {
       @Override
       protected void configure() {
         map().setPassword(source.getEncryptedPassword());
-        map().setRepeatPassword(source.getEncryptedPassword()); // <-- Add this
+        map().setRepeatPassword(source.getEncryptedPassword());
       }
     });
 
     return mapper;
   }
 }
-
@@ -0,0 +1,45 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UserIdsTest {
+
+  @Test
+  void testNewUserId_whenCreated_isVersion7AndOrderedByTime() throws InterruptedException {
+    String first = UserIds.newUserId();
+    Thread.sleep(2);
+    String second = UserIds.newUserId();
+
+    UUID uuid = UUID.fromString(first);
+    Assertions.assertEquals(7, uuid.version());
+    Assertions.assertEquals(2, uuid.variant());
+    long millis = uuid.getMostSignificantBits() >>> 16;
+    Assertions.assertTrue(Math.abs(System.currentTimeMillis() - millis) < 10000, first);
+    Assertions.assertTrue(first.compareTo(second) < 0, first + " < " + second);
+  }
+
+  @Test
+  void testToBytes_whenConvertedBack_returnsCanonicalForm() {
+    String userId = UserIds.newUserId();
+    String legacyUserId = UUID.randomUUID().toString();
+
+    byte[] bytes = UserIds.toBytes(userId);
+
+    Assertions.assertEquals(16, bytes.length);
+    Assertions.assertEquals(userId, UserIds.fromBytes(bytes));
+    Assertions.assertEquals(legacyUserId,
+        UserIds.fromBytes(UserIds.toBytes(legacyUserId.toUpperCase())));
+  }
+
+  @Test
+  void testIsValid_whenNotCanonicalUuid_returnsFalse() {
+    Assertions.assertFalse(UserIds.isValid(null));
+    Assertions.assertFalse(UserIds.isValid("12345"));
+    Assertions.assertFalse(UserIds.isValid("1-1-1-1-1"));
+    Assertions.assertFalse(UserIds.isValid("5f0b2c1e-7a43-4c4e-9f0e-3c1b2a9d8e7g"));
+    Assertions.assertFalse(UserIds.isValid("5f0b2c1e07a43-4c4e-9f0e-3c1b2a9d8e71"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> UserIds.toBytes("12345"));
+  }
+}
@@ -0,0 +1,79 @@
+package com.appsdeveloperblog.tutorials.junit.shared;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.ui.request.UserDetailsRequestModel;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+class UserMapperTest {
+
+  private final ModelMapper modelMapper = ReferenceModelMapper.create();
+  private final UserMapper userMapper = new UserMapper();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void testToUserDto_whenRequestModelGiven_matchesModelMapper() throws Exception {
+    UserDetailsRequestModel userDetails = new UserDetailsRequestModel();
+    userDetails.setFirstName("Eden");
+    userDetails.setLastName("Bercier");
+    userDetails.setEmail("eden@test.com");
+    userDetails.setPassword("12345678");
+    userDetails.setRepeatPassword("87654321");
+
+    assertSameJson(modelMapper.map(userDetails, UserDto.class),
+        userMapper.toUserDto(userDetails));
+  }
+
+  @Test
+  void testToUserEntity_whenUserDtoGiven_matchesModelMapper() throws Exception {
+    assertSameJson(modelMapper.map(userDto(), UserEntity.class),
+        userMapper.toUserEntity(userDto()));
+  }
+
+  @Test
+  void testToUserDto_whenUserEntityGiven_matchesModelMapper() throws Exception {
+    UserEntity userEntity = userMapper.toUserEntity(userDto());
+
+    assertSameJson(modelMapper.map(userEntity, UserDto.class), userMapper.toUserDto(userEntity));
+  }
+
+  @Test
+  void testToProfileDto_whenUserEntityGiven_dropsPasswordHash() {
+    UserEntity userEntity = userMapper.toUserEntity(userDto());
+
+    UserDto profile = userMapper.toProfileDto(userEntity);
+    UserRest userRest = userMapper.toUserRest(profile);
+
+    Assertions.assertEquals("eden@test.com", profile.getEmail());
+    Assertions.assertNull(profile.getEncryptedPassword());
+    Assertions.assertNull(profile.getPassword());
+    Assertions.assertNull(userRest.getPassword());
+    Assertions.assertNull(userRest.getRepeatPassword());
+  }
+
+  @Test
+  void testToUserRest_whenUserDtoGiven_matchesModelMapper() throws Exception {
+    assertSameJson(modelMapper.map(userDto(), UserRest.class), userMapper.toUserRest(userDto()));
+  }
+
+  private static UserDto userDto() {
+    UserDto userDto = new UserDto();
+    userDto.setId(42);
+    userDto.setUserId("5f0b2c1e-7a43-4c4e-9f0e-3c1b2a9d8e71");
+    userDto.setFirstName("Eden");
+    userDto.setLastName("Bercier");
+    userDto.setEmail("eden@test.com");
+    userDto.setPassword("12345678");
+    userDto.setEncryptedPassword("{bcrypt}$2a$10$hash");
+    return userDto;
+  }
+
+  private void assertSameJson(Object expected, Object actual) throws JsonProcessingException {
+    Assertions.assertEquals(objectMapper.writeValueAsString(expected),
+        objectMapper.writeValueAsString(actual));
+  }
+}
@@ -0,0 +1,122 @@
+package com.appsdeveloperblog.tutorials.junit.ui.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
+import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.service.EmailBloomFilter;
+import com.appsdeveloperblog.tutorials.junit.service.UsersService;
+import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import com.appsdeveloperblog.userservice.exception.UsersServiceException;
+import java.util.List;
+import java.util.UUID;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// own cache regions: the second-level cache is shared by every context in the JVM, and ids in
+// this context's database collide with those of the others
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "users.email-filter.enabled=true",
+    "spring.jpa.properties.hibernate.cache.region_prefix=email-filter"})
+public class UsersControllerEmailFilterTest {
+
+  private static final String PASSWORD = "12345678";
+
+  @Autowired
+  private TestRestTemplate testRestTemplate;
+  @Autowired
+  private UsersService usersService;
+  @Autowired
+  private EmailBloomFilter emailBloomFilter;
+  @Autowired
+  private UsersRepository usersRepository;
+
+  @Test
+  void testCreateUser_whenFilterIsEnabled_rejectsDuplicateAndLogsIn() throws JSONException {
+    String email = "filtered_" + UUID.randomUUID() + "@test.com";
+    assertTrue(emailBloomFilter.isWarm());
+
+    ResponseEntity<UserRest> created = createUser(email);
+    assertEquals(HttpStatus.OK, created.getStatusCode());
+
+    UserDto duplicate = new UserDto();
+    duplicate.setFirstName("Eden");
+    duplicate.setLastName("Bercier");
+    duplicate.setEmail(email);
+    duplicate.setPassword(PASSWORD);
+    assertThrows(UsersServiceException.class, () -> usersService.createUser(duplicate));
+
+    ResponseEntity<String> login = login(email);
+    assertEquals(HttpStatus.OK, login.getStatusCode());
+    assertEquals(created.getBody().getUserId(),
+        new JSONObject(login.getBody()).getString("userId"));
+  }
+
+  @Test
+  void testCreateUser_whenEmailWasStoredByAnotherInstance_reportsDuplicate() {
+    String email = "elsewhere_" + UUID.randomUUID() + "@test.com";
+    UserEntity storedElsewhere = new UserEntity();
+    storedElsewhere.setFirstName("Eden");
+    storedElsewhere.setLastName("Bercier");
+    storedElsewhere.setEmail(email);
+    storedElsewhere.setEncryptedPassword("12345678");
+    storedElsewhere.setUserId(UUID.randomUUID().toString());
+    usersRepository.save(storedElsewhere);
+
+    // the filter has not seen the email, so only the unique constraint catches the duplicate
+    UserDto user = new UserDto();
+    user.setFirstName("Eden");
+    user.setLastName("Bercier");
+    user.setEmail(email);
+    user.setPassword(PASSWORD);
+    UsersServiceException exception = assertThrows(UsersServiceException.class,
+        () -> usersService.createUser(user));
+    assertEquals("Record already exists", exception.getMessage());
+  }
+
+  @Test
+  void testUserLogin_whenFilterIsEnabledAndEmailIsUnknown_isRejected() throws JSONException {
+    String email = "unknown_" + UUID.randomUUID() + "@test.com";
+    assertFalse(emailBloomFilter.mightContain(email));
+
+    assertEquals(HttpStatus.FORBIDDEN, login(email).getStatusCode());
+  }
+
+  private ResponseEntity<UserRest> createUser(String email) throws JSONException {
+    JSONObject userDetailsRequestJson = new JSONObject();
+    userDetailsRequestJson.put("firstName", "Eden");
+    userDetailsRequestJson.put("lastName", "Bercier");
+    userDetailsRequestJson.put("email", email);
+    userDetailsRequestJson.put("password", PASSWORD);
+    userDetailsRequestJson.put("repeatPassword", PASSWORD);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+    return testRestTemplate.postForEntity("/users",
+        new HttpEntity<>(userDetailsRequestJson.toString(), headers), UserRest.class);
+  }
+
+  private ResponseEntity<String> login(String email) throws JSONException {
+    JSONObject loginCredentials = new JSONObject();
+    loginCredentials.put("email", email);
+    loginCredentials.put("password", PASSWORD);
+
+    return testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(loginCredentials.toString()), String.class);
+  }
+}
@@ -8,16 +8,25 @@ import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.appsdeveloperblog.tutorials.junit.config.SqlStatementCounter;
+import com.appsdeveloperblog.tutorials.junit.io.UserEntity;
 import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
 import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
 import com.appsdeveloperblog.tutorials.junit.service.UsersService;
 import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
+import com.appsdeveloperblog.tutorials.junit.ui.cache.UserProfileCache;
 import com.appsdeveloperblog.tutorials.junit.ui.response.UserRest;
+import com.appsdeveloperblog.tutorials.junit.ui.response.UserSliceRest;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import net.ttddyy.dsproxy.QueryType;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +45,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -56,6 +66,10 @@ public class UsersControllerIntegrationTest {
   private TestRestTemplate testRestTemplate;
   @Autowired
   private UsersRepository usersRepository;
+  @Autowired
+  private UserProfileCache userProfileCache;
+  @Autowired
+  private SqlStatementCounter sqlStatementCounter;
 
 
   @BeforeEach
@@ -177,4 +191,403 @@ public class UsersControllerIntegrationTest {
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(1, response.getBody().size());
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("GET /users?after= pages through users with a cursor")
+  void testGetUsers_withAfterCursor_returnsSlicesUntilExhausted() throws JSONException {
+    for (int i = 0; i < 3; i++) {
+      UserDto user = new UserDto();
+      user.setEmail("cursor_" + i + "_" + UUID.randomUUID() + "@test.com");
+      user.setPassword(TEST_PASSWORD);
+      user.setFirstName("Test");
+      user.setLastName("User");
+      usersService.createUser(user);
+    }
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    usersService.createUser(user);
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+    String token = new JSONObject(loginResponse.getBody()).getString("token");
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(token);
+    HttpEntity<Void> request = new HttpEntity<>(headers);
+
+    ResponseEntity<UserSliceRest> firstPage = testRestTemplate.exchange(
+        "/users?after=&limit=3", HttpMethod.GET, request, UserSliceRest.class);
+    assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+    assertEquals(3, firstPage.getBody().getUsers().size());
+    assertNotNull(firstPage.getBody().getNextCursor());
+
+    ResponseEntity<UserSliceRest> secondPage = testRestTemplate.exchange(
+        "/users?after=" + firstPage.getBody().getNextCursor() + "&limit=3", HttpMethod.GET,
+        request, UserSliceRest.class);
+    assertEquals(HttpStatus.OK, secondPage.getStatusCode());
+    assertEquals(1, secondPage.getBody().getUsers().size());
+    assertEquals(TEST_EMAIL, secondPage.getBody().getUsers().get(0).getEmail());
+    assertNull(secondPage.getBody().getNextCursor());
+
+    ResponseEntity<String> invalidCursor = testRestTemplate.exchange(
+        "/users?after=not-a-cursor", HttpMethod.GET, request, String.class);
+    assertEquals(HttpStatus.BAD_REQUEST, invalidCursor.getStatusCode());
+  }
+
+  @Test
+  @DisplayName("GET /users/export streams every user as NDJSON or CSV")
+  void testExportUsers_withValidJwt_streamsAllUsersWithoutPasswords() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    usersService.createUser(user);
+
+    UserDto secondUser = new UserDto();
+    secondUser.setEmail("export_" + UUID.randomUUID() + "@test.com");
+    secondUser.setPassword(TEST_PASSWORD);
+    secondUser.setFirstName("Second");
+    secondUser.setLastName("User");
+    usersService.createUser(secondUser);
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+    String token = new JSONObject(loginResponse.getBody()).getString("token");
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(token);
+    HttpEntity<Void> request = new HttpEntity<>(headers);
+
+    ResponseEntity<String> ndjson = testRestTemplate.exchange("/users/export", HttpMethod.GET,
+        request, String.class);
+    assertEquals(HttpStatus.OK, ndjson.getStatusCode());
+    String[] lines = ndjson.getBody().split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(TEST_EMAIL, new JSONObject(lines[0]).getString("email"));
+    assertFalse(ndjson.getBody().contains("assword"));
+
+    ResponseEntity<String> csv = testRestTemplate.exchange("/users/export?format=csv",
+        HttpMethod.GET, request, String.class);
+    assertEquals(HttpStatus.OK, csv.getStatusCode());
+    String[] rows = csv.getBody().split("\n");
+    assertEquals(3, rows.length);
+    assertEquals("userId,firstName,lastName,email", rows[0]);
+  }
+
+  @Test
+  @DisplayName("POST /users/batch imports users and reports a result per row in input order")
+  void testCreateUsers_withBatchOfUsers_returnsResultPerRow() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    usersService.createUser(user);
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+    String token = new JSONObject(loginResponse.getBody()).getString("token");
+
+    String newEmail = "batch_" + UUID.randomUUID() + "@test.com";
+    JSONArray batch = new JSONArray()
+        .put(batchUser("Batch", newEmail))
+        .put(batchUser("Batch", newEmail))
+        .put(batchUser("B", "invalid_" + UUID.randomUUID() + "@test.com"))
+        .put(batchUser("Batch", TEST_EMAIL))
+        .put("not a user");
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(token);
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> response = testRestTemplate.postForEntity("/users/batch",
+        new HttpEntity<>(batch.toString(), headers), String.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    JSONArray results = new JSONArray(response.getBody());
+    assertEquals(5, results.length());
+
+    List<String> statuses = new ArrayList<>();
+    for (int i = 0; i < results.length(); i++) {
+      JSONObject result = results.getJSONObject(i);
+      assertEquals(i, result.getInt("index"), "Results must come in input order");
+      statuses.add(result.getString("status"));
+    }
+    assertEquals(List.of("CREATED", "DUPLICATE", "INVALID", "DUPLICATE", "INVALID"), statuses);
+    assertNotNull(usersRepository.findByEmail(newEmail));
+  }
+
+  @Test
+  @DisplayName("POST /users/batch imports the rows before a syntax error and closes the array")
+  void testCreateUsers_whenBodyIsTruncated_importsReadRowsAndReportsError()
+      throws JSONException {
+    createUserAndLogin();
+    String newEmail = "batch_" + UUID.randomUUID() + "@test.com";
+    String body = "[" + batchUser("Batch", newEmail) + ", {\"firstName\": \"Tru";
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(authorizationToken);
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> response = testRestTemplate.postForEntity("/users/batch",
+        new HttpEntity<>(body, headers), String.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    JSONArray results = new JSONArray(response.getBody());
+    assertEquals(2, results.length());
+    assertEquals("CREATED", results.getJSONObject(0).getString("status"));
+    assertEquals(1, results.getJSONObject(1).getInt("index"));
+    assertEquals("INVALID", results.getJSONObject(1).getString("status"));
+    assertNotNull(usersRepository.findByEmail(newEmail));
+  }
+
+  @Test
+  @DisplayName("GET /users/{userId} is served from the profile cache on repeat reads")
+  void testGetUser_whenReadTwice_secondReadIsCacheHit() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    String userId = usersService.createUser(user).getUserId();
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+    String token = new JSONObject(loginResponse.getBody()).getString("token");
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(token);
+    HttpEntity<Void> request = new HttpEntity<>(headers);
+
+    long hitsBefore = userProfileCache.stats().hitCount();
+    ResponseEntity<UserRest> first = testRestTemplate.exchange("/users/" + userId,
+        HttpMethod.GET, request, UserRest.class);
+    ResponseEntity<UserRest> second = testRestTemplate.exchange("/users/" + userId,
+        HttpMethod.GET, request, UserRest.class);
+
+    assertEquals(HttpStatus.OK, first.getStatusCode());
+    assertEquals(HttpStatus.OK, second.getStatusCode());
+    assertEquals(TEST_EMAIL, second.getBody().getEmail());
+    assertEquals(hitsBefore + 1, userProfileCache.stats().hitCount());
+  }
+
+  @Test
+  @DisplayName("/login loads the user with a single query")
+  void testUserLogin_whenValidCredentialsProvided_runsOneQuery() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    String userId = usersService.createUser(user).getUserId();
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    sqlStatementCounter.reset();
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+
+    assertEquals(HttpStatus.OK, loginResponse.getStatusCode());
+    assertEquals(userId, new JSONObject(loginResponse.getBody()).getString("userId"));
+    assertEquals(1, sqlStatementCounter.count(QueryType.SELECT),
+        "Login should look the user up exactly once");
+    assertEquals(1, sqlStatementCounter.total(), "Login must not write");
+  }
+
+  @Test
+  @DisplayName("A repeated /login reads the user again, so changes by other instances are seen")
+  void testUserLogin_whenRepeated_readsUserAgain() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    usersService.createUser(user);
+    HttpEntity<String> login = new HttpEntity<>(new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD)
+        .toString());
+    testRestTemplate.postForEntity("/login", login, String.class);
+
+    sqlStatementCounter.reset();
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login", login,
+        String.class);
+
+    assertEquals(HttpStatus.OK, loginResponse.getStatusCode());
+    assertEquals(1, sqlStatementCounter.count(QueryType.SELECT));
+    assertEquals(1, sqlStatementCounter.total());
+  }
+
+  @Test
+  @DisplayName("Repeated user id lookups resolve through the natural-id cache, without the hash")
+  void testGetUserByUserId_whenReadTwice_runsNoQuery() throws JSONException {
+    String userId = createUserAndLogin();
+    usersService.getUserByUserId(userId);
+
+    sqlStatementCounter.reset();
+    UserDto cachedUser = usersService.getUserByUserId(userId);
+
+    assertEquals(TEST_EMAIL, cachedUser.getEmail());
+    assertEquals(0, sqlStatementCounter.total());
+    assertNull(cachedUser.getEncryptedPassword());
+    assertNull(cachedUser.getPassword());
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(authorizationToken);
+    ResponseEntity<String> response = testRestTemplate.exchange("/users/" + userId,
+        HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    JSONObject body = new JSONObject(response.getBody());
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(TEST_EMAIL, body.getString("email"));
+    assertTrue(body.isNull("password"), "GET /users/{userId} must not return the hash");
+    assertTrue(body.isNull("repeatPassword"), "GET /users/{userId} must not return the hash");
+  }
+
+  @Test
+  @DisplayName("POST /users inserts the user and its outbox event, nothing more")
+  void testCreateUser_whenEmailIsNew_staysWithinStatementBudget() throws JSONException {
+    JSONObject userDetails = new JSONObject()
+        .put("firstName", "Eden")
+        .put("lastName", "Bercier")
+        .put("email", "budget_" + UUID.randomUUID() + "@test.com")
+        .put("password", TEST_PASSWORD)
+        .put("repeatPassword", TEST_PASSWORD);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+
+    sqlStatementCounter.reset();
+    ResponseEntity<UserRest> response = testRestTemplate.postForEntity("/users",
+        new HttpEntity<>(userDetails.toString(), headers), UserRest.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(2, sqlStatementCounter.count(QueryType.INSERT));
+    // the only SELECTs allowed are the two id sequences, fetched once per allocation block
+    assertTrue(sqlStatementCounter.count(QueryType.SELECT) <= 2,
+        "selects: " + sqlStatementCounter.count(QueryType.SELECT));
+    assertEquals(0, sqlStatementCounter.count(QueryType.UPDATE));
+    assertEquals(0, sqlStatementCounter.slowCount());
+  }
+
+  @Test
+  @DisplayName("/login rehashes a password stored with an outdated BCrypt cost")
+  void testUserLogin_whenHashCostIsOutdated_upgradesStoredHash() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    usersService.createUser(user);
+    UserEntity userEntity = usersRepository.findByEmail(TEST_EMAIL);
+    userEntity.setEncryptedPassword(
+        "{bcrypt}" + new BCryptPasswordEncoder(4).encode(TEST_PASSWORD));
+    UserEntity outdated = usersRepository.save(userEntity);
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+
+    assertEquals(HttpStatus.OK, loginResponse.getStatusCode());
+    assertEquals(userEntity.getUserId(),
+        new JSONObject(loginResponse.getBody()).getString("userId"));
+    UserEntity upgraded = usersRepository.findByEmail(TEST_EMAIL);
+    assertTrue(upgraded.getEncryptedPassword().startsWith("{bcrypt}$2a$05$"),
+        upgraded.getEncryptedPassword());
+    assertEquals(outdated.getVersion() + 1, upgraded.getVersion());
+    assertTrue(upgraded.getLastModified().isAfter(outdated.getLastModified()),
+        "The rehash must move Last-Modified along with the ETag");
+  }
+
+  @Test
+  @DisplayName("GET /users/{userId} answers a matching If-None-Match with 304 from one query")
+  void testGetUser_whenETagMatches_returns304WithoutLoadingProfile() throws JSONException {
+    String userId = createUserAndLogin();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(authorizationToken);
+    ResponseEntity<UserRest> first = testRestTemplate.exchange("/users/" + userId,
+        HttpMethod.GET, new HttpEntity<>(headers), UserRest.class);
+
+    headers.setIfNoneMatch(first.getHeaders().getETag());
+    long cacheRequestsBefore = userProfileCache.stats().requestCount();
+    sqlStatementCounter.reset();
+    ResponseEntity<UserRest> second = testRestTemplate.exchange("/users/" + userId,
+        HttpMethod.GET, new HttpEntity<>(headers), UserRest.class);
+
+    assertEquals(HttpStatus.OK, first.getStatusCode());
+    assertNotNull(first.getHeaders().getETag());
+    assertTrue(first.getHeaders().getLastModified() > 0);
+    assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+    assertNull(second.getBody());
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    assertEquals(cacheRequestsBefore, userProfileCache.stats().requestCount());
+    assertEquals(1, sqlStatementCounter.total(), "A 304 should only read the version");
+  }
+
+  @Test
+  @DisplayName("GET /users answers 304 until a user on the page changes")
+  void testGetUsers_whenPageChangedSinceETag_returnsNewPage() throws JSONException {
+    createUserAndLogin();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(authorizationToken);
+    ResponseEntity<String> first = testRestTemplate.exchange("/users?page=1&limit=5",
+        HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+    headers.setIfNoneMatch(first.getHeaders().getETag());
+    ResponseEntity<String> unchanged = testRestTemplate.exchange("/users?page=1&limit=5",
+        HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    UserEntity userEntity = usersRepository.findByEmail(TEST_EMAIL);
+    userEntity.setFirstName("Renamed");
+    usersRepository.save(userEntity);
+    ResponseEntity<String> changed = testRestTemplate.exchange("/users?page=1&limit=5",
+        HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+    assertEquals(HttpStatus.OK, first.getStatusCode());
+    assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+    assertEquals(HttpStatus.OK, changed.getStatusCode());
+    assertFalse(first.getHeaders().getETag().equals(changed.getHeaders().getETag()));
+    assertEquals("Renamed", new JSONArray(changed.getBody()).getJSONObject(0)
+        .getString("firstName"));
+  }
+
+  private String createUserAndLogin() throws JSONException {
+    UserDto user = new UserDto();
+    user.setEmail(TEST_EMAIL);
+    user.setPassword(TEST_PASSWORD);
+    user.setFirstName("Test");
+    user.setLastName("User");
+    String userId = usersService.createUser(user).getUserId();
+
+    JSONObject login = new JSONObject()
+        .put("email", TEST_EMAIL)
+        .put("password", TEST_PASSWORD);
+    ResponseEntity<String> loginResponse = testRestTemplate.postForEntity("/login",
+        new HttpEntity<>(login.toString()), String.class);
+    authorizationToken = new JSONObject(loginResponse.getBody()).getString("token");
+    return userId;
+  }
+
+  private JSONObject batchUser(String firstName, String email) throws JSONException {
+    return new JSONObject()
+        .put("firstName", firstName)
+        .put("lastName", "Import")
+        .put("email", email)
+        .put("password", TEST_PASSWORD)
+        .put("repeatPassword", TEST_PASSWORD);
+  }
+}
@@ -0,0 +1,99 @@
+package com.appsdeveloperblog.tutorials.junit.ui.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.security.PasswordHashingExecutor;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "security.password-hashing.threads=1",
+    "security.password-hashing.queue-capacity=1",
+    "security.password-hashing.timeout=500ms",
+    "spring.jpa.properties.hibernate.cache.region_prefix=sign-up-timeout"})
+public class UsersControllerSignUpTimeoutTest {
+
+  @Autowired
+  private TestRestTemplate testRestTemplate;
+  @Autowired
+  private PasswordHashingExecutor passwordHashingExecutor;
+  @Autowired
+  private UsersRepository usersRepository;
+
+  @Test
+  void testCreateUser_whenHashingPoolIsBusy_returns503AndStoresNoUser() throws Exception {
+    String timedOutEmail = "timedout_" + UUID.randomUUID() + "@test.com";
+    String rejectedEmail = "rejected_" + UUID.randomUUID() + "@test.com";
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> busy = passwordHashingExecutor.submit(() -> {
+      started.countDown();
+      await(release);
+      return null;
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    try {
+      // waits in the queue until the timeout, then keeps the queue full until the pool frees up
+      ResponseEntity<Void> timedOut = createUser(timedOutEmail);
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+      assertEquals("1", timedOut.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+      ResponseEntity<Void> rejected = createUser(rejectedEmail);
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+    } finally {
+      release.countDown();
+    }
+
+    busy.get(5, TimeUnit.SECONDS);
+    while (passwordHashingExecutor.queueSize() > 0) {
+      Thread.sleep(10);
+    }
+    // one thread, so this runs only after the timed out sign-up had its turn
+    passwordHashingExecutor.submit(() -> null).get(5, TimeUnit.SECONDS);
+
+    assertNull(usersRepository.findByEmail(timedOutEmail));
+    assertNull(usersRepository.findByEmail(rejectedEmail));
+  }
+
+  private ResponseEntity<Void> createUser(String email) throws JSONException {
+    JSONObject userDetailsRequestJson = new JSONObject();
+    userDetailsRequestJson.put("firstName", "Eden");
+    userDetailsRequestJson.put("lastName", "Bercier");
+    userDetailsRequestJson.put("email", email);
+    userDetailsRequestJson.put("password", "12345678");
+    userDetailsRequestJson.put("repeatPassword", "12345678");
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+    return testRestTemplate.postForEntity("/users",
+        new HttpEntity<>(userDetailsRequestJson.toString(), headers), Void.class);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -5,8 +5,11 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import com.appsdeveloperblog.tutorials.junit.io.UsersRepository;
+import com.appsdeveloperblog.tutorials.junit.outbox.OutboxPublisher;
 import com.appsdeveloperblog.tutorials.junit.service.UsersService;
 import com.appsdeveloperblog.tutorials.junit.service.UsersServiceImpl;
 import com.appsdeveloperblog.tutorials.junit.shared.UserDto;
@@ -19,7 +22,6 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -36,15 +38,13 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 @WebMvcTest(controllers = UsersController.class,
     excludeAutoConfiguration = {SecurityAutoConfiguration.class})
 //@AutoConfigureMockMvc(addFilters = false)
-@MockBean({UsersServiceImpl.class})
+@MockBean({UsersServiceImpl.class, OutboxPublisher.class})
 public class UsersControllerWebLayerTest {
 
   @MockBean
   UsersService usersService;
   @Autowired
   private MockMvc mockMvc;
-  @Autowired
-  private ModelMapper modelMapper;
   @MockBean
   private UsersRepository usersRepository;
 
@@ -88,7 +88,10 @@ public class UsersControllerWebLayerTest {
         .content(new ObjectMapper().writeValueAsString(userDetailsRequestModel));
 
     // Act
-    MvcResult mvcResult = mockMvc.perform(requestBuilder).andReturn();
+    MvcResult asyncResult = mockMvc.perform(requestBuilder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
 
     verify(usersService).createUser(any(UserDto.class));
 
@@ -10,6 +10,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import com.appsdeveloperblog.tutorials.junit.security.SecurityConstants;
 import com.appsdeveloperblog.tutorials.junit.service.UsersService;
@@ -241,8 +242,8 @@ public class UsersControllerWithTestContainersTest {
          .body("[0].firstName", equalTo("Eden"))
          .body("[0].lastName", equalTo("Bercier"))
          .body("[0].userId", not(emptyOrNullString()))
-         .body("[0].password", not(emptyOrNullString()))
-         .body("[0].repeatPassword", not(emptyOrNullString()));
+         .body("[0].password", nullValue())
+         .body("[0].repeatPassword", nullValue());
     }
 
   }